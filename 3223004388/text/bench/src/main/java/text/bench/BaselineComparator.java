@@ -0,0 +1,111 @@
+package text.bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * 对比两份JMH JSON结果（-rf json），任一基准的耗时/吞吐或每次操作分配字节数
+ * 劣化超过容忍比例即以非0状态退出，便于在CI中守护性能
+ * <p>
+ * 用法: java -cp benchmarks.jar text.bench.BaselineComparator [基线.json] [本次.json] [容忍百分比，默认10]
+ */
+public class BaselineComparator {
+    // JMH 1.37 起GC分析器的指标名不再带前缀“·”，两种写法都接受，新旧基线可以互相对比
+    private static final String[] ALLOC_METRICS = {"gc.alloc.rate.norm", "·gc.alloc.rate.norm"};
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 && args.length != 3) {
+            System.err.println("用法: BaselineComparator [基线.json] [本次.json] [容忍百分比]");
+            System.exit(1);
+        }
+        double tolerance = args.length == 3 ? Double.parseDouble(args[2]) / 100.0 : 0.10;
+        int regressions = compare(load(args[0]), load(args[1]), tolerance, System.out);
+        if (regressions > 0) {
+            System.err.println(regressions + " 项基准劣化超过 " + Math.round(tolerance * 100) + "%");
+            System.exit(2);
+        }
+    }
+
+    /**
+     * 逐项对比并输出，返回劣化的基准数
+     */
+    static int compare(Map<String, JsonObject> baseline, Map<String, JsonObject> current,
+                       double tolerance, PrintStream out) {
+        int regressions = 0;
+        for (Map.Entry<String, JsonObject> entry : current.entrySet()) {
+            JsonObject before = baseline.get(entry.getKey());
+            if (before == null) {
+                out.printf("%-90s 新增基准，无基线%n", entry.getKey());
+                continue;
+            }
+            JsonObject after = entry.getValue();
+            boolean higherIsBetter = "thrpt".equals(after.get("mode").getAsString());
+            double oldScore = primaryScore(before);
+            double newScore = primaryScore(after);
+            double change = (newScore - oldScore) / oldScore;
+            boolean slower = higherIsBetter ? change < -tolerance : change > tolerance;
+
+            double oldAlloc = allocPerOp(before);
+            double newAlloc = allocPerOp(after);
+            boolean moreGarbage = oldAlloc > 0 && (newAlloc - oldAlloc) / oldAlloc > tolerance;
+
+            out.printf("%-90s %12.3f -> %12.3f (%+6.1f%%) alloc %12.0f -> %12.0f B/op%s%n",
+                    entry.getKey(), oldScore, newScore, change * 100, oldAlloc, newAlloc,
+                    slower || moreGarbage ? "  <-- 劣化" : "");
+            if (slower || moreGarbage) {
+                regressions++;
+            }
+        }
+        return regressions;
+    }
+
+    // 以 基准名 + 模式 + 参数 为键
+    static Map<String, JsonObject> load(String path) throws IOException {
+        Map<String, JsonObject> results = new LinkedHashMap<>();
+        try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            JsonArray array = JsonParser.parseReader(reader).getAsJsonArray();
+            for (JsonElement element : array) {
+                JsonObject result = element.getAsJsonObject();
+                Map<String, String> params = new TreeMap<>();
+                if (result.has("params")) {
+                    for (Map.Entry<String, JsonElement> param : result.getAsJsonObject("params").entrySet()) {
+                        params.put(param.getKey(), param.getValue().getAsString());
+                    }
+                }
+                String key = result.get("benchmark").getAsString().replace("text.bench.", "")
+                        + " [" + result.get("mode").getAsString() + "] " + params;
+                results.put(key, result);
+            }
+        }
+        return results;
+    }
+
+    private static double primaryScore(JsonObject result) {
+        return result.getAsJsonObject("primaryMetric").get("score").getAsDouble();
+    }
+
+    static double allocPerOp(JsonObject result) {
+        JsonObject secondary = result.getAsJsonObject("secondaryMetrics");
+        if (secondary == null) {
+            return 0;
+        }
+        for (String metric : ALLOC_METRICS) {
+            if (secondary.has(metric)) {
+                return secondary.getAsJsonObject(metric).get("score").getAsDouble();
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,67 @@
+package text.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import text.DocumentVector;
+import text.SimilarityCalculator;
+import text.SparseGramVector;
+
+/**
+ * 两个已构建向量之间的打分开销：哈希表查交集 vs 有序数组归并扫描 vs 只判定是否达到阈值（提前终止）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g"})
+public class CosineKernelBenchmark {
+    private static final double THRESHOLD = 0.8;
+
+    @Param({"1024", "65536", "1048576"})
+    public int chars;
+
+    @Param({"CJK", "ENGLISH", "MIXED"})
+    public Corpora.Kind corpus;
+
+    private DocumentVector original;
+    private DocumentVector plagiarized;
+    private SparseGramVector sparseOriginal;
+    private SparseGramVector sparsePlagiarized;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        original = DocumentVector.of(Corpora.original(corpus, chars, 42));
+        plagiarized = DocumentVector.of(Corpora.plagiarized(corpus, chars, 42));
+        sparseOriginal = original.sparse();
+        sparsePlagiarized = plagiarized.sparse();
+    }
+
+    @Benchmark
+    public double hashed() {
+        return SimilarityCalculator.calculateSimilarity(original, plagiarized);
+    }
+
+    @Benchmark
+    public double merged() {
+        return SimilarityCalculator.calculateSimilarity(sparseOriginal, sparsePlagiarized);
+    }
+
+    @Benchmark
+    public boolean atLeast() {
+        return SimilarityCalculator.similarityAtLeast(original, plagiarized, THRESHOLD);
+    }
+}
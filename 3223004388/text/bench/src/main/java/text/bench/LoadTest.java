@@ -0,0 +1,90 @@
+package text.bench;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 查重服务的本机压测：固定并发数的客户端循环发送请求，统计 p50/p99 延迟和每秒请求数
+ * <p>
+ * 用法: LoadTest [地址] [并发数] [请求总数] [每字符数]
+ * 所有请求共用同一篇原文、待检文本各不相同，用于观察同原文微批处理的效果
+ */
+public class LoadTest {
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080/similarity";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int total = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+        int chars = args.length > 3 ? Integer.parseInt(args[3]) : 4096;
+
+        String original = Corpora.original(Corpora.Kind.MIXED, chars, 42);
+        String[] bodies = new String[64];
+        for (int i = 0; i < bodies.length; i++) {
+            bodies[i] = "original=" + URLEncoder.encode(original, StandardCharsets.UTF_8)
+                    + "&plagiarized=" + URLEncoder.encode(Corpora.plagiarized(Corpora.Kind.MIXED, chars, i), StandardCharsets.UTF_8);
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        URI uri = URI.create(url);
+        // 预热：让服务端JIT编译热点代码
+        for (int i = 0; i < Math.min(200, total); i++) {
+            send(client, uri, bodies[i % bodies.length]);
+        }
+
+        long[] latencies = new long[total];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        Future<?>[] workers = new Future<?>[concurrency];
+        for (int w = 0; w < concurrency; w++) {
+            workers[w] = pool.submit(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < total) {
+                    long begin = System.nanoTime();
+                    try {
+                        if (send(client, uri, bodies[i % bodies.length]) != 200) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - begin;
+                }
+            });
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("请求数=%d 并发=%d 失败=%d%n", total, concurrency, failures.get());
+        System.out.printf("p50=%.2fms p99=%.2fms max=%.2fms%n",
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6, latencies[total - 1] / 1e6);
+        System.out.printf("吞吐量=%.1f 请求/秒%n", total / (elapsed / 1e9));
+    }
+
+    private static int send(HttpClient client, URI uri, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
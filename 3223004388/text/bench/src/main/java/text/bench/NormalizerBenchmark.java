@@ -0,0 +1,59 @@
+package text.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import text.TextNormalizer;
+
+/**
+ * 预处理扫描：逐字符实现 vs 向量API实现（同一JVM中对比，向量模块由fork参数加入）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "--add-modules", "jdk.incubator.vector"})
+public class NormalizerBenchmark {
+    @Param({"1024", "65536", "1048576"})
+    public int chars;
+
+    @Param({"CJK", "ENGLISH", "MIXED"})
+    public Corpora.Kind corpus;
+
+    private String text;
+    private TextNormalizer scalar;
+    private TextNormalizer vectorized;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        text = Corpora.original(corpus, chars, 42);
+        scalar = new TextNormalizer(chars, false);
+        vectorized = new TextNormalizer(chars, true);
+        if (!vectorized.isVectorized()) {
+            throw new IllegalStateException("向量API不可用，无法对比");
+        }
+    }
+
+    @Benchmark
+    public int scalar() {
+        return scalar.normalize(text);
+    }
+
+    @Benchmark
+    public int vectorized() {
+        return vectorized.normalize(text);
+    }
+}
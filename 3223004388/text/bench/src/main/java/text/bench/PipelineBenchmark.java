@@ -0,0 +1,68 @@
+package text.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import text.GramCountMap;
+import text.SimilarityCalculator;
+import text.TextProcessor;
+
+/**
+ * 查重流水线各阶段的基准测试：preprocess、segment、词频统计、calculateSimilarity
+ * 文档大小从1KB到50MB，语料分为纯中文、纯英文和中英混合
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g"})
+public class PipelineBenchmark {
+    @Param({"1024", "65536", "1048576", "52428800"})
+    public int chars;
+
+    @Param({"CJK", "ENGLISH", "MIXED"})
+    public Corpora.Kind corpus;
+
+    private String original;
+    private String plagiarized;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        original = Corpora.original(corpus, chars, 42);
+        plagiarized = Corpora.plagiarized(corpus, chars, 42);
+    }
+
+    @Benchmark
+    public String preprocess() {
+        return TextProcessor.preprocess(original);
+    }
+
+    @Benchmark
+    public void segment(Blackhole blackhole) {
+        TextProcessor.segment(original, blackhole::consume);
+    }
+
+    @Benchmark
+    public GramCountMap buildGramFrequency() {
+        return TextProcessor.buildGramFrequency(original);
+    }
+
+    @Benchmark
+    public double calculateSimilarity() {
+        return SimilarityCalculator.calculateSimilarity(original, plagiarized);
+    }
+}
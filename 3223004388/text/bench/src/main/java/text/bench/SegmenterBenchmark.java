@@ -0,0 +1,124 @@
+package text.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import text.CharNGramSegmenter;
+import text.DictionarySegmenter;
+import text.DocumentVector;
+import text.Segmenter;
+import text.TextProcessor;
+import text.WordShingleSegmenter;
+
+/**
+ * 各分词策略的吞吐量：只分词（编码推送给计数sink）和构建词频向量两个阶段
+ * 词典策略使用由语料常用词加随机汉字词凑成的约5万词词典，从临时文件加载
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g"})
+public class SegmenterBenchmark {
+    private static final int DICTIONARY_SIZE = 50_000;
+    private static final List<String> COMMON_WORDS = Arrays.asList(
+            "深度学习", "学习", "框架", "构建", "神经网络", "网络", "工具", "主流", "简化", "模型", "开发", "流程",
+            "数据挖掘", "数据", "大量", "提取", "价值", "信息", "过程", "结合", "统计学", "数据库", "技术", "用于",
+            "商业", "决策", "人工智能", "发展", "分为", "阶段", "本文", "研究", "基于", "混合", "语法", "论文",
+            "查重", "算法", "真实", "语料", "验证", "有效性", "会议", "医疗", "领域", "金融", "风控");
+
+    /**
+     * 分词策略
+     */
+    public enum Strategy {
+        CHAR, WORD, DICT
+    }
+
+    @Param({"65536", "1048576"})
+    public int chars;
+
+    @Param({"CJK", "ENGLISH", "MIXED"})
+    public Corpora.Kind corpus;
+
+    @Param({"CHAR", "WORD", "DICT"})
+    public Strategy strategy;
+
+    private String text;
+    private Segmenter segmenter;
+    private long count;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        text = Corpora.original(corpus, chars, 42);
+        switch (strategy) {
+            case WORD:
+                segmenter = new WordShingleSegmenter();
+                break;
+            case DICT:
+                segmenter = loadDictionary();
+                break;
+            default:
+                segmenter = CharNGramSegmenter.INSTANCE;
+        }
+        TextProcessor.setSegmenter(segmenter);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        TextProcessor.setSegmenter(CharNGramSegmenter.INSTANCE);
+    }
+
+    @Benchmark
+    public long segment() {
+        count = 0;
+        segmenter.segment(text, gram -> count += gram);
+        return count;
+    }
+
+    @Benchmark
+    public DocumentVector buildVector() {
+        return DocumentVector.of(text);
+    }
+
+    private static DictionarySegmenter loadDictionary() throws IOException {
+        List<String> words = new ArrayList<>(COMMON_WORDS);
+        Random random = new Random(42);
+        while (words.size() < DICTIONARY_SIZE) {
+            int length = 2 + random.nextInt(3);
+            char[] word = new char[length];
+            for (int i = 0; i < length; i++) {
+                word[i] = (char) ('一' + random.nextInt(3500)); // 常用汉字所在区段
+            }
+            words.add(new String(word));
+        }
+        Path file = Files.createTempFile("segmenter-bench", ".dict");
+        try {
+            Files.write(file, words, StandardCharsets.UTF_8);
+            return DictionarySegmenter.load(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
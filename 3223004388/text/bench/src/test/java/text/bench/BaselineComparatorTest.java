@@ -0,0 +1,75 @@
+package text.bench;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+
+import com.google.gson.JsonObject;
+
+public class BaselineComparatorTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+
+    @Before
+    public void setUp() {
+        directory = temporaryFolder.getRoot().toPath();
+    }
+
+    // 耗时不变而每次操作分配字节数变为5倍时判定为劣化
+    @Test
+    public void testFlagsAllocationRegression() throws IOException {
+        Map<String, JsonObject> baseline = load("baseline.json", result("gc.alloc.rate.norm", 10.0, 1000));
+        Map<String, JsonObject> current = load("current.json", result("gc.alloc.rate.norm", 10.0, 5000));
+        assertEquals(1000, BaselineComparator.allocPerOp(baseline.values().iterator().next()), 0.0);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int regressions = BaselineComparator.compare(baseline, current, 0.10, new PrintStream(output, true, StandardCharsets.UTF_8));
+        assertEquals(1, regressions);
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("<-- 劣化"));
+        assertEquals(0, BaselineComparator.compare(baseline, baseline, 0.10, new PrintStream(new ByteArrayOutputStream())));
+    }
+
+    // 旧版JMH带“·”前缀的指标名仍能识别，可以与新版结果对比
+    @Test
+    public void testAcceptsLegacyMetricName() throws IOException {
+        Map<String, JsonObject> baseline = load("baseline.json", result("·gc.alloc.rate.norm", 10.0, 1000));
+        Map<String, JsonObject> current = load("current.json", result("gc.alloc.rate.norm", 10.0, 5000));
+        assertEquals(1000, BaselineComparator.allocPerOp(baseline.values().iterator().next()), 0.0);
+        assertEquals(1, BaselineComparator.compare(baseline, current, 0.10, new PrintStream(new ByteArrayOutputStream())));
+    }
+
+    @Test
+    public void testFlagsSlowerAverageTime() throws IOException {
+        Map<String, JsonObject> baseline = load("baseline.json", result("gc.alloc.rate.norm", 10.0, 1000));
+        Map<String, JsonObject> current = load("current.json", result("gc.alloc.rate.norm", 12.0, 1000));
+        assertEquals(1, BaselineComparator.compare(baseline, current, 0.10, new PrintStream(new ByteArrayOutputStream())));
+        assertEquals(0, BaselineComparator.compare(baseline, current, 0.25, new PrintStream(new ByteArrayOutputStream())));
+    }
+
+    private Map<String, JsonObject> load(String name, String json) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        return BaselineComparator.load(file.toString());
+    }
+
+    // 与JMH -rf json 输出结构相同的单项平均耗时结果
+    private static String result(String allocMetric, double score, double allocPerOp) {
+        return "[{\"benchmark\":\"text.bench.PipelineBenchmark.segment\",\"mode\":\"avgt\","
+                + "\"params\":{\"chars\":\"1024\",\"corpus\":\"CJK\"},"
+                + "\"primaryMetric\":{\"score\":" + score + ",\"scoreUnit\":\"us/op\"},"
+                + "\"secondaryMetrics\":{\"" + allocMetric + "\":{\"score\":" + allocPerOp + ",\"scoreUnit\":\"B/op\"}}}]";
+    }
+}
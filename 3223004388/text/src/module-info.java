@@ -1,9 +1,13 @@
-/**
- * 
- */
-/**
- * 
- */
-module text {
-	requires junit;
+/**
+ * 
+ */
+/**
+ * 
+ */
+module text {
+	requires junit;
+	requires jdk.httpserver;
+	requires java.management;
+	requires jdk.management;
+	requires static jdk.incubator.vector;
 }
\ No newline at end of file
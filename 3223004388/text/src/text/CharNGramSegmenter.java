@@ -0,0 +1,27 @@
+package text;
+
+/**
+ * 默认分词策略：预处理后的字符2-gram + 3-gram（过滤含停用词的gram）
+ * 流式读取、并行分词和增量重算都针对该策略做了专门实现
+ */
+public final class CharNGramSegmenter implements Segmenter {
+    public static final CharNGramSegmenter INSTANCE = new CharNGramSegmenter();
+
+    private CharNGramSegmenter() {
+    }
+
+    @Override
+    public void segment(CharSequence text, GramSink sink) {
+        TextProcessor.segmentCharNGrams(text, sink);
+    }
+
+    @Override
+    public String name() {
+        return "char";
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+}
@@ -0,0 +1,75 @@
+package text;
+
+/**
+ * 一段两篇文本共有的内容，位置均为原始文件文本中的字符下标（左闭右开）
+ * 可直接用 substring 截取作为抄袭证据
+ */
+public final class CopiedPassage implements Comparable<CopiedPassage> {
+    private final int originalStart;
+    private final int originalEnd;
+    private final int plagiarizedStart;
+    private final int plagiarizedEnd;
+    private final int length;
+
+    /**
+     * @param length 规范化后的匹配字符数（不含标点和空白）
+     */
+    public CopiedPassage(int originalStart, int originalEnd, int plagiarizedStart, int plagiarizedEnd, int length) {
+        this.originalStart = originalStart;
+        this.originalEnd = originalEnd;
+        this.plagiarizedStart = plagiarizedStart;
+        this.plagiarizedEnd = plagiarizedEnd;
+        this.length = length;
+    }
+
+    public int originalStart() {
+        return originalStart;
+    }
+
+    public int originalEnd() {
+        return originalEnd;
+    }
+
+    public int plagiarizedStart() {
+        return plagiarizedStart;
+    }
+
+    public int plagiarizedEnd() {
+        return plagiarizedEnd;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * 按在抄袭版中的位置排序
+     */
+    @Override
+    public int compareTo(CopiedPassage other) {
+        int byStart = Integer.compare(plagiarizedStart, other.plagiarizedStart);
+        return byStart != 0 ? byStart : Integer.compare(originalStart, other.originalStart);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CopiedPassage)) {
+            return false;
+        }
+        CopiedPassage other = (CopiedPassage) o;
+        return originalStart == other.originalStart && originalEnd == other.originalEnd
+                && plagiarizedStart == other.plagiarizedStart && plagiarizedEnd == other.plagiarizedEnd
+                && length == other.length;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((originalStart * 31 + originalEnd) * 31 + plagiarizedStart) * 31 + plagiarizedEnd;
+    }
+
+    @Override
+    public String toString() {
+        return "原文[" + originalStart + ", " + originalEnd + ")\t抄袭版[" + plagiarizedStart + ", " + plagiarizedEnd
+                + ")\t" + length;
+    }
+}
@@ -0,0 +1,155 @@
+package text;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 参考论文库的内存索引
+ * 构建时对每篇参考论文分词、统计词频并预计算模长，查询时待检论文只分词一次，
+ * 再与库中每篇论文逐一打分，返回得分最高的K篇
+ */
+public class CorpusIndex {
+    private final List<String> names = new ArrayList<>();
+    private final List<DocumentVector> vectors = new ArrayList<>();
+
+    /**
+     * 读取目录下的全部文件（不递归）并构建索引，文件按名称排序，分词并行进行
+     * @param directory 参考论文目录
+     * @throws IOException 目录不存在或读取失败
+     */
+    public static CorpusIndex build(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("路径不是一个目录: " + directory);
+        }
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        List<DocumentVector> built;
+        try {
+            built = IntStream.range(0, files.size()).parallel()
+                    .mapToObj(i -> {
+                        try {
+                            return FileHandler.readVector(files.get(i).toString());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        CorpusIndex index = new CorpusIndex();
+        for (int i = 0; i < files.size(); i++) {
+            index.add(files.get(i).getFileName().toString(), built.get(i));
+        }
+        return index;
+    }
+
+    /**
+     * 加入一篇参考论文
+     */
+    public void add(String name, String text) {
+        add(name, DocumentVector.of(text));
+    }
+
+    public void add(String name, DocumentVector vector) {
+        names.add(name);
+        vectors.add(vector);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public String name(int docId) {
+        return names.get(docId);
+    }
+
+    public DocumentVector vector(int docId) {
+        return vectors.get(docId);
+    }
+
+    /**
+     * 查询与待检文本最相似的K篇参考论文
+     */
+    public List<Match> search(String query, int topK) {
+        return search(DocumentVector.of(query), topK);
+    }
+
+    /**
+     * 用已构建的查询向量与库中每篇论文打分，按得分降序返回前K篇
+     */
+    public List<Match> search(DocumentVector query, int topK) {
+        if (topK <= 0) {
+            return Collections.emptyList();
+        }
+        // 小顶堆保留当前得分最高的K篇
+        PriorityQueue<Match> heap = new PriorityQueue<>(topK + 1);
+        // 查询与库中向量都转为有序数组，逐篇做无哈希的线性打分
+        SparseGramVector sparseQuery = query.sparse();
+        for (int docId = 0; docId < vectors.size(); docId++) {
+            double score = SimilarityCalculator.cosine(sparseQuery, vectors.get(docId).sparse());
+            if (heap.size() < topK) {
+                heap.add(new Match(docId, names.get(docId), score));
+            } else if (score > heap.peek().score()) {
+                heap.poll();
+                heap.add(new Match(docId, names.get(docId), score));
+            }
+        }
+        List<Match> result = new ArrayList<>(heap);
+        result.sort(Collections.reverseOrder());
+        return result;
+    }
+
+    /**
+     * 一条检索结果
+     */
+    public static final class Match implements Comparable<Match> {
+        private final int docId;
+        private final String name;
+        private final double score;
+
+        public Match(int docId, String name, double score) {
+            this.docId = docId;
+            this.name = name;
+            this.score = score;
+        }
+
+        public int docId() {
+            return docId;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * 未舍入的相似度
+         */
+        public double score() {
+            return score;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            int result = Double.compare(score, other.score);
+            // 得分相同时编号小的排在前面
+            return result != 0 ? result : Integer.compare(other.docId, docId);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s\t%.2f", name, Math.round(score * 100) / 100.0);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package text;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+public class CorpusIndexTest {
+
+    // 检索结果按相似度降序，得分与逐对计算一致
+    @Test
+    public void testSearchTopK() {
+        CorpusIndex index = new CorpusIndex();
+        index.add("ai.txt", "这是一篇原创论文，讨论人工智能在医疗领域的应用。");
+        index.add("quantum.txt", "量子计算利用叠加态和纠缠实现并行运算。");
+        index.add("mining.txt", "数据挖掘是从大量数据中提取价值信息的过程。");
+
+        String query = "这是一篇抄袭论文，讨论人工智能在医疗领域的应用。";
+        List<CorpusIndex.Match> matches = index.search(query, 2);
+
+        assertEquals(2, matches.size());
+        assertEquals("ai.txt", matches.get(0).name());
+        assertTrue(matches.get(0).score() >= matches.get(1).score());
+        assertEquals(SimilarityCalculator.calculateSimilarity(query, "这是一篇原创论文，讨论人工智能在医疗领域的应用。"),
+                Math.round(matches.get(0).score() * 100) / 100.0, 1e-9);
+    }
+
+    // K大于库大小时返回全部
+    @Test
+    public void testTopKLargerThanCorpus() {
+        CorpusIndex index = new CorpusIndex();
+        index.add("a", "人工智能");
+        assertEquals(1, index.search("人工智能", 5).size());
+        assertTrue(index.search("人工智能", 0).isEmpty());
+    }
+}
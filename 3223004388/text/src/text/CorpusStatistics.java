@@ -0,0 +1,141 @@
+package text;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 参考语料的文档频率统计：每个gram出现在多少篇论文中
+ * 统计结果写成按gram编码升序的表（见 {@link IdfTable}），查重时映射到内存按二分查找读取IDF
+ * <p>
+ * 只出现在极少数论文中的gram数量最多、信息量也最接近“未出现”，
+ * 可以用最小文档频率把它们从表中去掉，查找不到的gram按 {@link IdfTable#missingIdf()} 计
+ */
+public class CorpusStatistics {
+    public static final int DEFAULT_MIN_DOCUMENT_FREQUENCY = 2;
+
+    // gram编码 → 包含它的论文数
+    private final GramCountMap documentFrequency = new GramCountMap();
+    private long documents;
+
+    /**
+     * 统计目录下的全部文件（不递归），分词并行进行
+     * @throws IOException 目录不存在或读取失败
+     */
+    public static CorpusStatistics build(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("路径不是一个目录: " + directory);
+        }
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        CorpusStatistics statistics = new CorpusStatistics();
+        try {
+            // 每篇论文的向量用完即弃，只保留汇总后的文档频率
+            IntStream.range(0, files.size()).parallel().forEach(i -> {
+                DocumentVector vector;
+                try {
+                    vector = FileHandler.readVector(files.get(i).toString());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                synchronized (statistics) {
+                    statistics.add(vector);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return statistics;
+    }
+
+    /**
+     * 计入一篇论文：其中每个不同的gram文档频率加一
+     */
+    public void add(DocumentVector vector) {
+        vector.counts().forEach((gram, count) -> documentFrequency.increment(gram));
+        documents++;
+    }
+
+    public long documentCount() {
+        return documents;
+    }
+
+    /**
+     * 不同gram的数量
+     */
+    public int size() {
+        return documentFrequency.size();
+    }
+
+    public int documentFrequency(long gram) {
+        return documentFrequency.get(gram);
+    }
+
+    /**
+     * 写出IDF表，文档频率低于minDocumentFrequency的gram不写入
+     * 先写临时文件再原子替换，正在映射旧表的进程不受影响
+     */
+    public void write(Path file, int minDocumentFrequency) throws IOException {
+        long[] keys = documentFrequency.sortedKeys();
+        int kept = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (documentFrequency.get(keys[i]) >= minDocumentFrequency) {
+                keys[kept++] = keys[i];
+            }
+        }
+        byte[] segmenter = TextProcessor.getSegmenter().name().getBytes(StandardCharsets.UTF_8);
+        // 被去掉的gram最多出现在 minDocumentFrequency-1 篇论文中
+        float missingIdf = (float) IdfTable.idf(documents, Math.max(0, minDocumentFrequency - 1));
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "idf", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp);
+                 DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16))) {
+                data.writeInt(IdfTable.MAGIC);
+                data.writeInt(IdfTable.VERSION);
+                data.writeLong(documents);
+                data.writeLong(kept);
+                data.writeFloat(missingIdf);
+                data.writeInt(segmenter.length);
+                data.write(segmenter);
+                // gram编码区按8字节对齐
+                for (int pad = IdfTable.keysOffset(segmenter.length) - IdfTable.HEADER_BYTES - segmenter.length;
+                     pad > 0; pad--) {
+                    data.writeByte(0);
+                }
+                for (int i = 0; i < kept; i++) {
+                    data.writeLong(keys[i]);
+                }
+                for (int i = 0; i < kept; i++) {
+                    data.writeFloat((float) IdfTable.idf(documents, documentFrequency.get(keys[i])));
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        write(file, DEFAULT_MIN_DOCUMENT_FREQUENCY);
+    }
+}
@@ -0,0 +1,569 @@
+package text;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 堆外的参考论文向量库：只追加写入，查询时整体内存映射
+ * 百万篇论文的向量若以 {@link DocumentVector} 放在堆上需要上百GB且GC停顿很长，
+ * 这里每个gram约占4字节（编码差值加计数），堆上只有映射缓冲区对象，打分直接读取映射内存
+ * <p>
+ * 库目录下两个文件（大端）：
+ * <pre>
+ * corpus.dat：魔数 "CSTR"(4字节) | 版本(4字节) | 分块位数(4字节) | 分词策略名长度(4字节) | 分词策略名(补0到8字节对齐)
+ *             | 论文记录…
+ * 论文记录：   文件名长度(varint) | 文件名(UTF-8) | 模长平方(varint) | gram数n(varint) | 编码区字节数(varint)
+ *             | n个gram编码（升序，与前一个编码的差值按varint编码）| n个计数（varint）
+ * corpus.idx：每篇论文一个8字节的记录起始位置，下标即论文编号
+ * </pre>
+ * 数据文件按 2^分块位数 字节分块映射（默认1GB），记录不跨块，放不下时从下一块开始。
+ * 记录先写入数据文件，目录项攒满一批（或追加目录的每批结束、关闭时）先对数据文件刷盘再写入，
+ * 因此落盘的目录项指向的记录一定已经落盘；中断时没有目录项的记录在下次追加时截掉
+ * <p>
+ * {@link #open(Path)} 只映射文件、不读取记录，打开耗时与论文数无关；
+ * 打开后追加的论文要重新打开才能看到。可被多线程并发读取
+ */
+public final class CorpusStore {
+    static final String DATA_FILE = "corpus.dat";
+    static final String INDEX_FILE = "corpus.idx";
+    static final int MAGIC = 0x43535452; // "CSTR"
+    static final int VERSION = 1;
+    static final int DEFAULT_CHUNK_BITS = 30;
+    private static final int HEADER_BYTES = 16;
+    // 较大向量超过较小向量的这个倍数时，在查询向量中改用跳跃查找
+    private static final int SKEWED_SIZE_RATIO = 8;
+    // 追加整个目录时每批并行分词的论文数，内存占用与目录大小无关
+    private static final int APPEND_BATCH = 256;
+
+    private final ByteBuffer[] chunks;
+    private final int chunkBits;
+    private final long chunkMask;
+    private final LongBuffer offsets;
+    private final String segmenter;
+
+    private CorpusStore(ByteBuffer[] chunks, int chunkBits, LongBuffer offsets, String segmenter) {
+        this.chunks = chunks;
+        this.chunkBits = chunkBits;
+        this.chunkMask = (1L << chunkBits) - 1;
+        this.offsets = offsets;
+        this.segmenter = segmenter;
+    }
+
+    /**
+     * 目录下是否已有向量库
+     */
+    public static boolean exists(Path directory) {
+        return Files.isRegularFile(directory.resolve(DATA_FILE)) && Files.isRegularFile(directory.resolve(INDEX_FILE));
+    }
+
+    /**
+     * 映射向量库（只读）
+     * @throws IOException 文件不存在或格式错误
+     */
+    public static CorpusStore open(Path directory) throws IOException {
+        Path dataFile = directory.resolve(DATA_FILE);
+        try (FileChannel data = FileChannel.open(dataFile, StandardOpenOption.READ);
+             FileChannel index = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.READ)) {
+            long dataSize = data.size();
+            Header header = Header.read(data, dataFile);
+            long count = index.size() / Long.BYTES;
+            if (count > Integer.MAX_VALUE) {
+                throw new IOException("向量库论文数过多: " + count);
+            }
+            LongBuffer offsets = index.map(FileChannel.MapMode.READ_ONLY, 0, count * Long.BYTES).asLongBuffer();
+            // 关闭通道后映射仍然有效
+            long chunkSize = 1L << header.chunkBits;
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((dataSize + chunkSize - 1) >>> header.chunkBits)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = (long) i << header.chunkBits;
+                chunks[i] = data.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkSize, dataSize - start));
+            }
+            if (count > 0 && offsets.get((int) count - 1) >= dataSize) {
+                throw new IOException("向量库目录与数据不一致: " + directory);
+            }
+            return new CorpusStore(chunks, header.chunkBits, offsets, header.segmenter);
+        }
+    }
+
+    /**
+     * 打开向量库用于追加，目录或文件不存在时按当前分词策略新建
+     * 同一时间只允许一个追加者，其他进程仍可同时读取
+     */
+    public static Appender appender(Path directory) throws IOException {
+        return appender(directory, DEFAULT_CHUNK_BITS);
+    }
+
+    static Appender appender(Path directory, int chunkBits) throws IOException {
+        return new Appender(directory, chunkBits);
+    }
+
+    /**
+     * 论文数
+     */
+    public int size() {
+        return offsets.capacity();
+    }
+
+    /**
+     * 建库时使用的分词策略名，查询时必须使用同一策略
+     */
+    public String segmenter() {
+        return segmenter;
+    }
+
+    public String name(int docId) {
+        ByteBuffer record = record(docId);
+        byte[] name = new byte[(int) GramVectorCache.readVarLong(record)];
+        record.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 把第docId篇论文的向量解码到堆上
+     */
+    public SparseGramVector vector(int docId) {
+        ByteBuffer record = record(docId);
+        int nameLength = (int) GramVectorCache.readVarLong(record);
+        record.position(record.position() + nameLength);
+        long squaredNorm = GramVectorCache.readVarLong(record);
+        int size = (int) GramVectorCache.readVarLong(record);
+        GramVectorCache.readVarLong(record); // 编码区字节数
+        long[] keys = new long[size];
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += GramVectorCache.readVarLong(record);
+            keys[i] = previous;
+        }
+        int[] counts = new int[size];
+        for (int i = 0; i < size; i++) {
+            counts[i] = (int) GramVectorCache.readVarLong(record);
+        }
+        return SparseGramVector.wrap(keys, counts, squaredNorm);
+    }
+
+    /**
+     * 查询与待检文本最相似的K篇参考论文
+     */
+    public List<CorpusIndex.Match> search(String query, int topK) {
+        return search(DocumentVector.of(query), topK);
+    }
+
+    /**
+     * 查询向量与库中每篇论文直接在映射内存上打分，按得分降序返回前K篇
+     */
+    public List<CorpusIndex.Match> search(DocumentVector query, int topK) {
+        if (topK <= 0) {
+            return Collections.emptyList();
+        }
+        SparseGramVector sparseQuery = query.sparse();
+        // 小顶堆保留当前得分最高的K篇，只有进入前K的论文才读取文件名
+        PriorityQueue<CorpusIndex.Match> heap = new PriorityQueue<>(topK + 1);
+        for (int docId = 0; docId < size(); docId++) {
+            double score = cosine(docId, sparseQuery);
+            if (heap.size() < topK) {
+                heap.add(new CorpusIndex.Match(docId, name(docId), score));
+            } else if (score > heap.peek().score()) {
+                heap.poll();
+                heap.add(new CorpusIndex.Match(docId, name(docId), score));
+            }
+        }
+        List<CorpusIndex.Match> result = new ArrayList<>(heap);
+        result.sort(Collections.reverseOrder());
+        return result;
+    }
+
+    /**
+     * 第docId篇论文与查询向量的未舍入加权余弦相似度，
+     * 与 {@link SimilarityCalculator#cosine(SparseGramVector, SparseGramVector)} 逐位一致
+     * 库中向量不解码到堆上：编码区和计数区各一个读取位置，在映射内存中同步前进
+     */
+    double cosine(int docId, SparseGramVector query) {
+        ByteBuffer record = record(docId);
+        int nameLength = (int) GramVectorCache.readVarLong(record);
+        record.position(record.position() + nameLength);
+        long squaredNorm = GramVectorCache.readVarLong(record);
+        int size = (int) GramVectorCache.readVarLong(record);
+        int keysBytes = (int) GramVectorCache.readVarLong(record);
+        // 处理空文本
+        if (size == 0 && query.isEmpty()) {
+            return 1.00;
+        }
+        if (size == 0 || query.isEmpty()) {
+            return 0.00;
+        }
+        long[] queryKeys = query.keys();
+        int[] queryCounts = query.counts();
+        int querySize = queryKeys.length;
+        boolean skewed = querySize / SKEWED_SIZE_RATIO > size;
+        int keyPosition = record.position();
+        int countPosition = keyPosition + keysBytes;
+
+        long dotLow = 0;
+        long dotHigh = 0;
+        long highSquaresStored = 0;
+        long highSquaresQuery = 0;
+        long key = 0;
+        int j = 0;
+        for (int k = 0; k < size && j < querySize; k++) {
+            // 逐个解码编码差值和计数（varint）
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = record.get(keyPosition++);
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            key += delta;
+            int count = 0;
+            shift = 0;
+            do {
+                b = record.get(countPosition++);
+                count |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            if (skewed) {
+                j = SimilarityCalculator.seek(queryKeys, j, key);
+            } else {
+                while (j < querySize && queryKeys[j] < key) {
+                    j++;
+                }
+            }
+            if (j < querySize && queryKeys[j] == key) {
+                long c1 = count;
+                long c2 = queryCounts[j++];
+                // 两侧次数均≥2时计入高频部分
+                if (c1 >= 2 && c2 >= 2) {
+                    dotHigh += c1 * c2;
+                    highSquaresStored += c1 * c1;
+                    highSquaresQuery += c2 * c2;
+                } else {
+                    dotLow += c1 * c2;
+                }
+            }
+        }
+        return SimilarityCalculator.weightedCosine(dotLow, dotHigh,
+                squaredNorm, highSquaresStored, query.squaredNorm(), highSquaresQuery);
+    }
+
+    // 第docId篇论文记录的独立视图，位置在记录开头
+    private ByteBuffer record(int docId) {
+        long offset = offsets.get(docId);
+        ByteBuffer record = chunks[(int) (offset >>> chunkBits)].duplicate();
+        record.position((int) (offset & chunkMask));
+        return record;
+    }
+
+    /**
+     * 向量库的追加写入者，论文编号按追加顺序从0开始连续分配
+     */
+    public static final class Appender implements Closeable {
+        private final FileChannel data;
+        private final FileChannel index;
+        private final FileLock lock;
+        private final int chunkBits;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 16);
+        // 尚未写入目录文件的记录起始位置
+        private final ByteBuffer pending = ByteBuffer.allocate(APPEND_BATCH * Long.BYTES);
+        private long end;
+        private int count;
+        private int flushed;
+
+        private Appender(Path directory, int chunkBits) throws IOException {
+            Files.createDirectories(directory);
+            Path dataFile = directory.resolve(DATA_FILE);
+            data = FileChannel.open(dataFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileChannel indexChannel = null;
+            FileLock fileLock = null;
+            try {
+                indexChannel = FileChannel.open(directory.resolve(INDEX_FILE),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                fileLock = indexChannel.tryLock();
+                if (fileLock == null) {
+                    throw new IOException("向量库正被其他进程写入: " + directory);
+                }
+                String current = TextProcessor.getSegmenter().name();
+                if (data.size() == 0) {
+                    end = Header.write(data, chunkBits, current);
+                    this.chunkBits = chunkBits;
+                } else {
+                    Header header = Header.read(data, dataFile);
+                    if (!header.segmenter.equals(current)) {
+                        throw new IOException("向量库的分词策略(" + header.segmenter + ")与当前策略不一致");
+                    }
+                    this.chunkBits = header.chunkBits;
+                    end = header.recordsOffset;
+                }
+                index = indexChannel;
+                lock = fileLock;
+                recover();
+            } catch (IOException | RuntimeException e) {
+                if (indexChannel != null) {
+                    indexChannel.close();
+                }
+                data.close();
+                throw e;
+            }
+        }
+
+        /**
+         * 截掉上次中断时写了一半的记录和目录项
+         * 目录项只在数据刷盘后写入，正常情况下最后一条记录总是完整的；
+         * 仍然逐条校验末尾记录，解码越界的（如数据文件被外部截断）连同目录项一起丢弃
+         */
+        private void recover() throws IOException {
+            long entries = index.size() / Long.BYTES;
+            long recordsOffset = end;
+            while (entries > 0) {
+                ByteBuffer last = ByteBuffer.allocate(Long.BYTES);
+                index.read(last, (entries - 1) * Long.BYTES);
+                long start = last.getLong(0);
+                long length = recordLength(data, start);
+                if (length > 0) {
+                    end = start + length;
+                    break;
+                }
+                entries--;
+            }
+            if (entries == 0) {
+                end = recordsOffset;
+            }
+            index.truncate(entries * Long.BYTES);
+            count = (int) entries;
+            flushed = count;
+            data.truncate(end);
+        }
+
+        // 一条已写完的记录的长度，记录不完整时返回-1：记录不跨块，映射到所在块的末尾后逐项解码
+        private long recordLength(FileChannel channel, long start) throws IOException {
+            long chunkEnd = (start | ((1L << chunkBits) - 1)) + 1;
+            long available = Math.min(chunkEnd, channel.size()) - start;
+            if (start < HEADER_BYTES || available <= 0) {
+                return -1;
+            }
+            try {
+                return decodedLength(channel.map(FileChannel.MapMode.READ_ONLY, start, available));
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                return -1;
+            }
+        }
+
+        private static long decodedLength(ByteBuffer record) {
+            int nameLength = (int) GramVectorCache.readVarLong(record);
+            record.position(record.position() + nameLength);
+            GramVectorCache.readVarLong(record); // 模长平方
+            long size = GramVectorCache.readVarLong(record);
+            long keysBytes = GramVectorCache.readVarLong(record);
+            record.position(record.position() + (int) keysBytes);
+            for (long i = 0; i < size; i++) {
+                GramVectorCache.readVarLong(record);
+            }
+            return record.position();
+        }
+
+        /**
+         * 追加一篇论文，返回其编号
+         * @throws IOException 写入失败，或单篇论文的记录超过一个分块
+         */
+        public int append(String name, DocumentVector vector) throws IOException {
+            buffer.reset();
+            DataOutputStream out = new DataOutputStream(buffer);
+            byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            GramCountMap counts = vector.counts();
+            long[] keys = counts.sortedKeys();
+            GramVectorCache.writeVarLong(out, nameBytes.length);
+            out.write(nameBytes);
+            GramVectorCache.writeVarLong(out, vector.squaredNorm());
+            GramVectorCache.writeVarLong(out, keys.length);
+            int keysBytes = 0;
+            long previous = 0;
+            for (long key : keys) {
+                keysBytes += varLongLength(key - previous);
+                previous = key;
+            }
+            GramVectorCache.writeVarLong(out, keysBytes);
+            previous = 0;
+            for (long key : keys) {
+                GramVectorCache.writeVarLong(out, key - previous);
+                previous = key;
+            }
+            for (long key : keys) {
+                GramVectorCache.writeVarLong(out, counts.get(key));
+            }
+
+            long chunkSize = 1L << chunkBits;
+            int length = buffer.size();
+            if (length > chunkSize) {
+                throw new IOException("论文向量过大: " + name + "（" + length + "字节）");
+            }
+            // 记录不跨块：当前块放不下时从下一块开始，中间留空
+            long start = end;
+            if ((start & (chunkSize - 1)) + length > chunkSize) {
+                start = (start + chunkSize - 1) & ~(chunkSize - 1);
+            }
+            writeFully(data, ByteBuffer.wrap(buffer.toByteArray()), start);
+            pending.putLong(start);
+            end = start + length;
+            int docId = count++;
+            if (!pending.hasRemaining()) {
+                flush();
+            }
+            return docId;
+        }
+
+        /**
+         * 把已追加的记录刷盘，再写入它们的目录项；此后重新打开的向量库能看到这些论文
+         */
+        public void flush() throws IOException {
+            if (pending.position() == 0) {
+                return;
+            }
+            data.force(false);
+            pending.flip();
+            writeFully(index, pending, (long) flushed * Long.BYTES);
+            pending.clear();
+            flushed = count;
+        }
+
+        /**
+         * 追加目录下的全部文件（不递归），按文件名排序，分批并行分词
+         * @return 追加的论文数
+         */
+        public int appendDirectory(Path corpusDirectory) throws IOException {
+            if (!Files.isDirectory(corpusDirectory)) {
+                throw new IOException("路径不是一个目录: " + corpusDirectory);
+            }
+            List<Path> files;
+            try (Stream<Path> stream = Files.list(corpusDirectory)) {
+                files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (int from = 0; from < files.size(); from += APPEND_BATCH) {
+                List<Path> batch = files.subList(from, Math.min(from + APPEND_BATCH, files.size()));
+                List<DocumentVector> vectors;
+                try {
+                    vectors = IntStream.range(0, batch.size()).parallel()
+                            .mapToObj(i -> {
+                                try {
+                                    return FileHandler.readVector(batch.get(i).toString());
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            })
+                            .collect(Collectors.toList());
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    append(batch.get(i).getFileName().toString(), vectors.get(i));
+                }
+                flush();
+            }
+            return files.size();
+        }
+
+        /**
+         * 库中论文数（含本次追加的）
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * 刷盘并释放写锁
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                index.force(false);
+                lock.release();
+            } finally {
+                index.close();
+                data.close();
+            }
+        }
+
+        private static int varLongLength(long value) {
+            return Math.max(1, (64 - Long.numberOfLeadingZeros(value) + 6) / 7);
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer bytes, long position) throws IOException {
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+        }
+    }
+
+    /**
+     * 数据文件头
+     */
+    private static final class Header {
+        final int chunkBits;
+        final String segmenter;
+        final long recordsOffset;
+
+        private Header(int chunkBits, String segmenter, long recordsOffset) {
+            this.chunkBits = chunkBits;
+            this.segmenter = segmenter;
+            this.recordsOffset = recordsOffset;
+        }
+
+        static Header read(FileChannel channel, Path file) throws IOException {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("向量库格式错误: " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, 4096));
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("向量库格式错误: " + file);
+            }
+            int chunkBits = header.getInt();
+            int nameLength = header.getInt();
+            if (chunkBits < 12 || chunkBits > 30 || nameLength < 0 || HEADER_BYTES + nameLength > header.limit()) {
+                throw new IOException("向量库格式错误: " + file);
+            }
+            byte[] name = new byte[nameLength];
+            header.get(name);
+            return new Header(chunkBits, new String(name, StandardCharsets.UTF_8), recordsOffset(nameLength));
+        }
+
+        // 写出文件头，返回第一条记录的位置
+        static long write(FileChannel channel, int chunkBits, String segmenter) throws IOException {
+            byte[] name = segmenter.getBytes(StandardCharsets.UTF_8);
+            long recordsOffset = recordsOffset(name.length);
+            if (chunkBits < 12 || chunkBits > 30 || recordsOffset > 4096) {
+                throw new IllegalArgumentException("分块位数或分词策略名不合法");
+            }
+            ByteBuffer header = ByteBuffer.allocate((int) recordsOffset);
+            header.putInt(MAGIC).putInt(VERSION).putInt(chunkBits).putInt(name.length).put(name);
+            header.clear();
+            Appender.writeFully(channel, header, 0);
+            return recordsOffset;
+        }
+
+        private static long recordsOffset(int nameLength) {
+            return (HEADER_BYTES + nameLength + 7) & ~7;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package text;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class CorpusStoreTest {
+    private static final String[] TOPICS = {
+            "深度学习框架是构建神经网络的工具，主流框架简化了模型开发流程。",
+            "数据挖掘是从大量数据中提取价值信息的过程，结合统计学和数据库技术。",
+            "人工智能的发展分为弱人工智能、强人工智能和超人工智能三个阶段。",
+            "区块链通过分布式账本和共识机制保证交易记录不可篡改。",
+            "Quantum computing uses superposition and entanglement, 量子计算超越经典计算机。"
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = temporaryFolder.getRoot().toPath();
+    }
+
+    // 映射内存上的打分与堆上有序数组版本逐位一致，检索结果与内存索引一致
+    @Test
+    public void testCosineMatchesHeapVectors() throws IOException {
+        List<String> texts = texts(40, new Random(7));
+        CorpusIndex heap = new CorpusIndex();
+        try (CorpusStore.Appender appender = CorpusStore.appender(directory)) {
+            for (int i = 0; i < texts.size(); i++) {
+                assertEquals(i, appender.append("doc" + i, DocumentVector.of(texts.get(i))));
+                heap.add("doc" + i, texts.get(i));
+            }
+        }
+        CorpusStore store = CorpusStore.open(directory);
+        assertEquals(texts.size(), store.size());
+        assertEquals("char", store.segmenter());
+
+        List<String> queries = new ArrayList<>(texts.subList(0, 5));
+        queries.add("");
+        queries.add("人工智能");
+        queries.add(String.join("", texts));
+        for (String text : queries) {
+            SparseGramVector query = SparseGramVector.of(text);
+            for (int docId = 0; docId < store.size(); docId++) {
+                SparseGramVector stored = store.vector(docId);
+                assertEquals("doc" + docId, store.name(docId));
+                assertEquals(heap.vector(docId).sparse().size(), stored.size());
+                assertEquals(heap.vector(docId).squaredNorm(), stored.squaredNorm());
+                assertEquals(SimilarityCalculator.cosine(stored, query), store.cosine(docId, query), 0.0);
+            }
+        }
+        String query = texts.get(3) + TOPICS[1];
+        assertEquals(heap.search(query, 5).toString(), store.search(query, 5).toString());
+    }
+
+    // 小分块下记录不跨块，分两次追加后仍能全部读出
+    @Test
+    public void testChunkBoundariesAndReopen() throws IOException {
+        List<String> texts = texts(60, new Random(11));
+        try (CorpusStore.Appender appender = CorpusStore.appender(directory, 12)) {
+            for (int i = 0; i < 30; i++) {
+                appender.append("doc" + i, DocumentVector.of(texts.get(i)));
+            }
+        }
+        try (CorpusStore.Appender appender = CorpusStore.appender(directory)) {
+            assertEquals(30, appender.size());
+            for (int i = 30; i < texts.size(); i++) {
+                appender.append("doc" + i, DocumentVector.of(texts.get(i)));
+            }
+        }
+        assertTrue(Files.size(directory.resolve(CorpusStore.DATA_FILE)) > 4 << 12);
+        CorpusStore store = CorpusStore.open(directory);
+        assertEquals(texts.size(), store.size());
+        for (int i = 0; i < texts.size(); i++) {
+            SparseGramVector expected = SparseGramVector.of(texts.get(i));
+            assertEquals("doc" + i, store.name(i));
+            assertEquals(SimilarityCalculator.cosine(expected, expected), store.cosine(i, expected), 0.0);
+            assertEquals(expected.size(), store.vector(i).size());
+        }
+    }
+
+    // 写到一半中断留下的残缺记录和目录项在下次追加时被截掉
+    @Test
+    public void testRecoversFromPartialAppend() throws IOException {
+        try (CorpusStore.Appender appender = CorpusStore.appender(directory)) {
+            appender.append("a", DocumentVector.of(TOPICS[0]));
+            appender.append("b", DocumentVector.of(TOPICS[1]));
+        }
+        long dataSize = Files.size(directory.resolve(CorpusStore.DATA_FILE));
+        try (FileChannel data = FileChannel.open(directory.resolve(CorpusStore.DATA_FILE), StandardOpenOption.WRITE);
+             FileChannel index = FileChannel.open(directory.resolve(CorpusStore.INDEX_FILE), StandardOpenOption.WRITE)) {
+            data.write(ByteBuffer.wrap(new byte[]{5, 'x', 'y'}), dataSize);
+            index.write(ByteBuffer.wrap(new byte[]{0, 0, 0}), 2 * Long.BYTES);
+        }
+        // 只读打开时忽略不完整的目录项
+        assertEquals(2, CorpusStore.open(directory).size());
+
+        try (CorpusStore.Appender appender = CorpusStore.appender(directory)) {
+            assertEquals(2, appender.size());
+        }
+        assertEquals(dataSize, Files.size(directory.resolve(CorpusStore.DATA_FILE)));
+        assertEquals(2 * Long.BYTES, Files.size(directory.resolve(CorpusStore.INDEX_FILE)));
+        try (CorpusStore.Appender appender = CorpusStore.appender(directory)) {
+            assertEquals(2, appender.append("c", DocumentVector.of(TOPICS[2])));
+        }
+        CorpusStore store = CorpusStore.open(directory);
+        assertEquals(3, store.size());
+        assertEquals("c", store.name(2));
+        SparseGramVector query = SparseGramVector.of(TOPICS[2]);
+        assertEquals(SimilarityCalculator.cosine(query, query), store.cosine(2, query), 0.0);
+    }
+
+    // 目录项已落盘而记录不完整时（如记录未刷盘），下次追加时连同目录项一起丢弃
+    @Test
+    public void testDropsIndexEntryOfIncompleteRecord() throws IOException {
+        try (CorpusStore.Appender appender = CorpusStore.appender(directory)) {
+            appender.append("a", DocumentVector.of(TOPICS[0]));
+            appender.append("b", DocumentVector.of(TOPICS[1]));
+        }
+        long dataSize = Files.size(directory.resolve(CorpusStore.DATA_FILE));
+        try (FileChannel data = FileChannel.open(directory.resolve(CorpusStore.DATA_FILE), StandardOpenOption.WRITE);
+             FileChannel index = FileChannel.open(directory.resolve(CorpusStore.INDEX_FILE), StandardOpenOption.WRITE)) {
+            // 文件名长度为5但只写了两个字节，之后还有一条指向文件末尾之外的目录项
+            data.write(ByteBuffer.wrap(new byte[]{5, 'x', 'y'}), dataSize);
+            ByteBuffer entries = ByteBuffer.allocate(2 * Long.BYTES);
+            entries.putLong(dataSize).putLong(dataSize + 100).flip();
+            index.write(entries, 2 * Long.BYTES);
+        }
+        try (CorpusStore.Appender appender = CorpusStore.appender(directory)) {
+            assertEquals(2, appender.size());
+            assertEquals(2, appender.append("c", DocumentVector.of(TOPICS[2])));
+        }
+        CorpusStore store = CorpusStore.open(directory);
+        assertEquals(3, store.size());
+        assertEquals("b", store.name(1));
+        assertEquals("c", store.name(2));
+    }
+
+    // 未刷出的目录项在flush后才对新打开的向量库可见
+    @Test
+    public void testFlushPublishesAppendedRecords() throws IOException {
+        try (CorpusStore.Appender appender = CorpusStore.appender(directory)) {
+            appender.append("a", DocumentVector.of(TOPICS[0]));
+            assertEquals(0, CorpusStore.open(directory).size());
+            appender.flush();
+            assertEquals(1, CorpusStore.open(directory).size());
+        }
+    }
+
+    // 随机混排的中英文文本，含重复片段（使部分gram计数≥2）
+    private static List<String> texts(int count, Random random) {
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder text = new StringBuilder();
+            int parts = 1 + random.nextInt(30);
+            for (int p = 0; p < parts; p++) {
+                text.append(TOPICS[random.nextInt(TOPICS.length)]);
+                if (random.nextBoolean()) {
+                    text.append(" word").append(random.nextInt(50)).append(' ');
+                }
+            }
+            texts.add(text.toString());
+        }
+        return texts;
+    }
+}
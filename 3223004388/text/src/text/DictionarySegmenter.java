@@ -0,0 +1,146 @@
+package text;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 基于词典的中文分词策略：用双数组字典树做正向最大匹配，词典中没有的汉字单独成词，
+ * 英文单词和数字整体成词。输出每个词以及同一句内相邻两个词组成的词组，
+ * 与默认策略的“2-gram + 3-gram”类似，兼顾词的覆盖和词序
+ * <p>
+ * 词典为UTF-8文本，每行一个词（可带以空白分隔的词频、词性等附加列，只取第一列），# 开头的行为注释
+ */
+public final class DictionarySegmenter implements Segmenter {
+    private final DoubleArrayTrie trie;
+    private final int maxWordLength;
+    private final String name;
+
+    private DictionarySegmenter(List<String> words) {
+        this.trie = new DoubleArrayTrie(words);
+        int longest = 1;
+        long h = 0xcbf29ce484222325L;
+        for (String word : words) {
+            longest = Math.max(longest, word.length());
+            for (int i = 0; i < word.length(); i++) {
+                h = (h ^ word.charAt(i)) * 0x100000001b3L;
+            }
+            h = (h ^ '\n') * 0x100000001b3L;
+        }
+        this.maxWordLength = longest;
+        // 标识包含词表摘要，不同词典的分词结果不会在缓存中混用
+        this.name = "dict-" + Long.toHexString(MinHasher.mix(h) >>> 32);
+    }
+
+    /**
+     * 由词表构建（词会先按预处理规则规范化，含标点或空白的词被忽略）
+     */
+    public static DictionarySegmenter of(Collection<String> words) {
+        TreeSet<String> normalized = new TreeSet<>();
+        TextNormalizer normalizer = new TextNormalizer();
+        for (String word : words) {
+            int length = normalizer.normalize(word);
+            if (length > 0 && length == word.length() && new String(normalizer.buffer(), 0, length).indexOf(' ') < 0) {
+                normalized.add(new String(normalizer.buffer(), 0, length));
+            }
+        }
+        return new DictionarySegmenter(new ArrayList<>(normalized));
+    }
+
+    /**
+     * 从本地词典文件加载
+     * @throws IOException 文件不存在或读取失败
+     */
+    public static DictionarySegmenter load(Path dictionary) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(dictionary, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int space = 0;
+                while (space < line.length() && !Character.isWhitespace(line.charAt(space))) {
+                    space++;
+                }
+                words.add(line.substring(0, space));
+            }
+        }
+        return of(words);
+    }
+
+    @Override
+    public void segment(CharSequence text, GramSink sink) {
+        TextNormalizer normalizer = TextProcessor.normalizer();
+        int n = normalizer.normalize(text);
+        char[] chars = normalizer.buffer();
+        long previous = 0; // 同一句内的上一个词，0表示句首
+        int i = 0;
+        while (i < n) {
+            char c = chars[i];
+            if (c == ' ') {
+                previous = 0;
+                i++;
+                continue;
+            }
+            int end = wordEnd(chars, i, n);
+            long word = GramCodes.hashed(chars, i, end);
+            sink.accept(word);
+            if (previous != 0) {
+                sink.accept(GramCodes.combine(previous, word));
+            }
+            previous = word;
+            i = end;
+        }
+    }
+
+    /**
+     * 对文本做正向最大匹配，返回切分出的词（用于调试和测试）
+     */
+    public List<String> words(String text) {
+        TextNormalizer normalizer = new TextNormalizer();
+        int n = normalizer.normalize(text);
+        char[] chars = normalizer.buffer();
+        List<String> words = new ArrayList<>();
+        int i = 0;
+        while (i < n) {
+            if (chars[i] == ' ') {
+                i++;
+                continue;
+            }
+            int end = wordEnd(chars, i, n);
+            words.add(new String(chars, i, end - i));
+            i = end;
+        }
+        return words;
+    }
+
+    // 从start开始的一个词的结束位置：英文单词取整段，否则取词典中的最长匹配（至少一个字）
+    private int wordEnd(char[] chars, int start, int n) {
+        if (WordShingleSegmenter.isWordChar(chars[start])) {
+            int end = start + 1;
+            while (end < n && WordShingleSegmenter.isWordChar(chars[end])) {
+                end++;
+            }
+            return end;
+        }
+        return start + Math.max(1, trie.longestMatch(chars, start, Math.min(n, start + maxWordLength)));
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+}
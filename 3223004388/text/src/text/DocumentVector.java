@@ -0,0 +1,82 @@
+package text;
+
+/**
+ * 单篇文档的gram词频向量及其预计算的模长平方
+ * 一次构建后可与任意多篇文档重复比较，不必重新分词计数
+ */
+public final class DocumentVector {
+    private final GramCountMap counts;
+    private final long squaredNorm;
+    // 按需构建的有序数组形式，用于反复比较时的有序扫描打分（不可变，并发重复构建无害）
+    private volatile SparseGramVector sparse;
+    // 按需统计的次数≥2的gram计数平方和，-1表示尚未统计
+    private volatile long repeatedSquares = -1;
+
+    public DocumentVector(GramCountMap counts) {
+        this(counts, counts.sumOfSquares());
+    }
+
+    /**
+     * 使用已知的模长平方（如从缓存读取）构建，调用方保证与计数一致
+     */
+    DocumentVector(GramCountMap counts, long squaredNorm) {
+        this.counts = counts;
+        this.squaredNorm = squaredNorm;
+    }
+
+    /**
+     * 对文本预处理、分词并统计词频
+     */
+    public static DocumentVector of(String text) {
+        return new DocumentVector(TextProcessor.buildGramFrequency(text));
+    }
+
+    public GramCountMap counts() {
+        return counts;
+    }
+
+    /**
+     * 有序数组形式，首次调用时排序构建并缓存
+     */
+    public SparseGramVector sparse() {
+        SparseGramVector result = sparse;
+        if (result == null) {
+            result = SparseGramVector.of(counts);
+            sparse = result;
+        }
+        return result;
+    }
+
+    /**
+     * 次数≥2的gram的计数平方和（这些gram才可能成为高频gram），首次调用时统计并缓存
+     */
+    public long repeatedSquaredNorm() {
+        long result = repeatedSquares;
+        if (result < 0) {
+            long[] sum = new long[1];
+            counts.forEach((gram, count) -> {
+                if (count >= 2) {
+                    sum[0] += (long) count * count;
+                }
+            });
+            result = sum[0];
+            repeatedSquares = result;
+        }
+        return result;
+    }
+
+    /**
+     * 未加权的计数平方和
+     */
+    public long squaredNorm() {
+        return squaredNorm;
+    }
+
+    public int size() {
+        return counts.size();
+    }
+
+    public boolean isEmpty() {
+        return counts.isEmpty();
+    }
+}
@@ -0,0 +1,158 @@
+package text;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 双数组字典树：状态s沿字符c转移到 t = base[s] + c + 1，当且仅当 check[t] == s + 1 时转移存在
+ * 构建后只有两个int数组和一个结束标记数组，查找一个字符只需一次数组访问，没有哈希和对象跳转
+ */
+final class DoubleArrayTrie {
+    private int[] base;
+    private int[] check;
+    private boolean[] terminal;
+    private int used;
+
+    /**
+     * @param words 已排序且去重的词表
+     */
+    DoubleArrayTrie(List<String> words) {
+        int capacity = 1024;
+        for (String word : words) {
+            capacity += word.length();
+        }
+        base = new int[capacity];
+        check = new int[capacity];
+        terminal = new boolean[capacity];
+        check[0] = -1; // 根节点占用0号位置
+        used = 1;
+        build(words);
+        base = Arrays.copyOf(base, used);
+        check = Arrays.copyOf(check, used);
+        terminal = Arrays.copyOf(terminal, used);
+    }
+
+    /**
+     * text[start, end) 中从start开始能匹配的最长词长度，没有匹配时返回0
+     */
+    int longestMatch(char[] text, int start, int end) {
+        int state = 0;
+        int longest = 0;
+        for (int i = start; i < end; i++) {
+            int b = base[state];
+            if (b == 0) {
+                break; // 叶子节点
+            }
+            int next = b + text[i] + 1;
+            if (next >= check.length || check[next] != state + 1) {
+                break;
+            }
+            state = next;
+            if (terminal[state]) {
+                longest = i - start + 1;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * 双数组长度
+     */
+    int size() {
+        return used;
+    }
+
+    // 广度优先为每个节点寻找一个base，使其所有子节点落在空位上
+    private void build(List<String> words) {
+        Deque<int[]> queue = new ArrayDeque<>(); // {状态, 词区间起点, 词区间终点, 深度}
+        queue.add(new int[]{0, 0, words.size(), 0});
+        int[] codes = new int[16];
+        int[] bounds = new int[17];
+        int nextCheckPos = 1;
+        while (!queue.isEmpty()) {
+            int[] node = queue.poll();
+            int state = node[0];
+            int lo = node[1];
+            int hi = node[2];
+            int depth = node[3];
+            if (lo < hi && words.get(lo).length() == depth) {
+                terminal[state] = true;
+                lo++;
+            }
+            // 同一前缀下的词在有序表中连续，按下一个字符分组
+            int children = 0;
+            for (int i = lo; i < hi; ) {
+                char c = words.get(i).charAt(depth);
+                int j = i + 1;
+                while (j < hi && words.get(j).charAt(depth) == c) {
+                    j++;
+                }
+                if (children == codes.length) {
+                    codes = Arrays.copyOf(codes, children << 1);
+                    bounds = Arrays.copyOf(bounds, (children << 1) + 1);
+                }
+                codes[children] = c + 1;
+                bounds[children] = i;
+                children++;
+                i = j;
+            }
+            bounds[children] = hi;
+            if (children == 0) {
+                continue;
+            }
+
+            int firstCode = codes[0];
+            int lastCode = codes[children - 1];
+            int position = Math.max(nextCheckPos, firstCode + 1);
+            boolean firstFree = true;
+            int occupied = 0;
+            int b;
+            search:
+            while (true) {
+                ensureCapacity(position - firstCode + lastCode + 1);
+                if (check[position] != 0) {
+                    position++;
+                    occupied++;
+                    continue;
+                }
+                if (firstFree) {
+                    nextCheckPos = position;
+                    firstFree = false;
+                }
+                b = position - firstCode;
+                for (int k = 1; k < children; k++) {
+                    if (check[b + codes[k]] != 0) {
+                        position++;
+                        continue search;
+                    }
+                }
+                break;
+            }
+            // 扫过的区域几乎已满时直接跳过，避免后续节点重复扫描
+            if (occupied > 0 && (double) occupied / (position - nextCheckPos + 1) >= 0.95) {
+                nextCheckPos = position;
+            }
+
+            base[state] = b;
+            for (int k = 0; k < children; k++) {
+                int child = b + codes[k];
+                check[child] = state + 1;
+                used = Math.max(used, child + 1);
+            }
+            for (int k = 0; k < children; k++) {
+                queue.add(new int[]{b + codes[k], bounds[k], bounds[k + 1], depth + 1});
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > check.length) {
+            int newCapacity = Math.max(capacity, check.length + (check.length >> 1));
+            base = Arrays.copyOf(base, newCapacity);
+            check = Arrays.copyOf(check, newCapacity);
+            terminal = Arrays.copyOf(terminal, newCapacity);
+        }
+    }
+}
@@ -1,52 +1,159 @@
-package text;
-
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-
-public class FileHandler {
-    /**
-     * 读取文件内容
-     * @param filePath 文件路径
-     * @return 文件内容字符串
-     * @throws IOException 如果文件不存在或读取失败
-     */
-    public static String readFile(String filePath) throws IOException {
-        // 检查文件是否存在
-        File file = new File(filePath);
-        if (!file.exists()) {
-            throw new FileNotFoundException("文件不存在: " + filePath);
-        }
-        
-        if (!file.isFile()) {
-            throw new IOException("路径不是一个文件: " + filePath);
-        }
-        
-        if (!file.canRead()) {
-            throw new IOException("没有文件读取权限: " + filePath);
-        }
-        
-        // 读取文件内容
-        byte[] bytes = Files.readAllBytes(Paths.get(filePath));
-        return new String(bytes, StandardCharsets.UTF_8);
-    }
-    
-    /**
-     * 写入内容到文件
-     * @param filePath 文件路径
-     * @param content 要写入的内容
-     * @throws IOException 如果写入失败
-     */
-    public static void writeFile(String filePath, String content) throws IOException {
-        // 确保父目录存在
-        File file = new File(filePath);
-        File parentDir = file.getParentFile();
-        if (parentDir != null && !parentDir.exists()) {
-            parentDir.mkdirs();
-        }
-        
-        // 写入文件
-        Files.write(Paths.get(filePath), content.getBytes(StandardCharsets.UTF_8));
-    }
-}
+package text;
+
+import java.io.*;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class FileHandler {
+    // 每次映射的文件窗口大小
+    private static final int MAP_WINDOW_BYTES = 64 << 20;
+    // 解码缓冲区大小（字符数），决定流式读取的峰值堆内存
+    private static final int CHAR_BUFFER_SIZE = 8192;
+
+    /**
+     * 读取文件内容
+     * @param filePath 文件路径
+     * @return 文件内容字符串
+     * @throws IOException 如果文件不存在或读取失败
+     */
+    public static String readFile(String filePath) throws IOException {
+        checkReadable(filePath);
+        
+        // 读取文件内容
+        long start = PipelineMetrics.start(PipelineMetrics.Stage.READ);
+        byte[] bytes = Files.readAllBytes(Paths.get(filePath));
+        String content = new String(bytes, StandardCharsets.UTF_8);
+        PipelineMetrics.stop(PipelineMetrics.Stage.READ, start, bytes.length);
+        return content;
+    }
+    
+    /**
+     * 流式读取UTF-8文件并直接分词计数，返回词频向量
+     * 峰值堆内存由解码缓冲区和词频表决定，与文件大小无关
+     * @param filePath 文件路径
+     * @return 文件内容的词频向量
+     * @throws IOException 如果文件不存在或读取失败
+     */
+    public static DocumentVector readVector(String filePath) throws IOException {
+        if (!TextProcessor.usesCharNGrams()) {
+            // 流式分词只实现了字符n-gram策略，其他策略整篇读入后分词
+            return DocumentVector.of(readFile(filePath));
+        }
+        GramCountMap counts = new GramCountMap();
+        StreamingSegmenter segmenter = new StreamingSegmenter(counts);
+        // 读取、预处理和分词交替进行，各阶段分别累计，读取阶段不含处理字符的时间
+        segmenter.measureStages();
+        streamFile(filePath, StandardCharsets.UTF_8, segmenter);
+        segmenter.recordStages(counts.size());
+        return new DocumentVector(counts);
+    }
+    
+    /**
+     * 以内存映射方式流式读取文件：按窗口映射文件，用CharsetDecoder增量解码到固定大小的CharBuffer，
+     * 每解码满一个缓冲区就推送给分词器
+     * 跨窗口被截断的多字节字符会在下一个窗口重新映射后解码，跨缓冲区的gram由分词器保留的上下文处理
+     * @param filePath 文件路径
+     * @param charset 文件编码，无法解码的字节按替换字符处理（与 new String(bytes, charset) 一致）
+     * @param segmenter 接收字符的流式分词器
+     * @throws IOException 如果文件不存在或读取失败
+     */
+    public static void streamFile(String filePath, Charset charset, StreamingSegmenter segmenter) throws IOException {
+        streamFile(filePath, charset, segmenter, MAP_WINDOW_BYTES, CHAR_BUFFER_SIZE);
+    }
+    
+    static void streamFile(String filePath, Charset charset, StreamingSegmenter segmenter,
+                           int mapWindowBytes, int charBufferSize) throws IOException {
+        checkReadable(filePath);
+        
+        // 读取阶段只累计映射和解码的时间，推送给分词器的时间不计入
+        PipelineMetrics.Span read = PipelineMetrics.span(PipelineMetrics.Stage.READ);
+        read.resume();
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        // 至少能容纳一个代理对，否则补充平面字符永远无法输出
+        CharBuffer chars = CharBuffer.allocate(Math.max(charBufferSize, 2));
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            do {
+                long windowSize = Math.min(mapWindowBytes, size - position);
+                boolean endOfInput = position + windowSize >= size;
+                MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                while (true) {
+                    CoderResult result = decoder.decode(bytes, chars, endOfInput);
+                    drain(chars, segmenter, read);
+                    if (result.isUnderflow()) {
+                        break;
+                    }
+                    if (result.isError()) {
+                        result.throwException();
+                    }
+                }
+                // 窗口末尾未解码完的字节从下一个窗口重新映射
+                position += bytes.position();
+            } while (position < size);
+            
+            while (decoder.flush(chars).isOverflow()) {
+                drain(chars, segmenter, read);
+            }
+            drain(chars, segmenter, read);
+            read.pause(size);
+            read.record();
+        }
+    }
+    
+    private static void drain(CharBuffer chars, StreamingSegmenter segmenter, PipelineMetrics.Span read) {
+        chars.flip();
+        read.pause(0);
+        segmenter.feed(chars);
+        read.resume();
+        chars.clear();
+    }
+    
+    /**
+     * 检查文件是否存在且可读
+     */
+    private static void checkReadable(String filePath) throws IOException {
+        // 检查文件是否存在
+        File file = new File(filePath);
+        if (!file.exists()) {
+            throw new FileNotFoundException("文件不存在: " + filePath);
+        }
+        
+        if (!file.isFile()) {
+            throw new IOException("路径不是一个文件: " + filePath);
+        }
+        
+        if (!file.canRead()) {
+            throw new IOException("没有文件读取权限: " + filePath);
+        }
+    }
+    
+    /**
+     * 写入内容到文件
+     * @param filePath 文件路径
+     * @param content 要写入的内容
+     * @throws IOException 如果写入失败
+     */
+    public static void writeFile(String filePath, String content) throws IOException {
+        // 确保父目录存在
+        File file = new File(filePath);
+        File parentDir = file.getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
+        }
+        
+        // 写入文件
+        Files.write(Paths.get(filePath), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,14 +1,54 @@
-package text;
-
-import org.junit.Test;
-import java.io.FileNotFoundException;
-
-public class FileHandlerTest {
-    // 测试读取不存在的文件，预期抛出FileNotFoundException
-    @Test(expected = FileNotFoundException.class)
-    public void testReadFile_FileNotFound() throws Exception {
-        // 传入一个肯定不存在的文件路径（临时目录下的non_exist.txt）
-        String nonExistentPath = System.getProperty("java.io.tmpdir") + "/non_exist.txt";
-        FileHandler.readFile(nonExistentPath);
-    }
-}
\ No newline at end of file
+package text;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class FileHandlerTest {
+    // 测试读取不存在的文件，预期抛出FileNotFoundException
+    @Test(expected = FileNotFoundException.class)
+    public void testReadFile_FileNotFound() throws Exception {
+        // 传入一个肯定不存在的文件路径（临时目录下的non_exist.txt）
+        String nonExistentPath = System.getProperty("java.io.tmpdir") + "/non_exist.txt";
+        FileHandler.readFile(nonExistentPath);
+    }
+
+    // 测试流式读取：窗口和缓冲区极小时（多字节字符和gram都会跨边界），结果与整篇读入一致
+    @Test
+    public void testStreamFile_MatchesInMemorySegmentation() throws Exception {
+        String text = "AI（人工智能）的发展始于1956年的Dartmouth会议。\n深度学习框架包括TensorFlow、PyTorch和Keras，"
+                + "简化了模型开发流程。😀 It's   a  TEST!";
+        Path file = Files.createTempFile("stream", ".txt");
+        try {
+            Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+            GramCountMap expected = TextProcessor.buildGramFrequency(FileHandler.readFile(file.toString()));
+            for (int window : new int[]{7, 64, 1 << 20}) {
+                for (int buffer : new int[]{2, 3, 8192}) {
+                    GramCountMap actual = new GramCountMap();
+                    FileHandler.streamFile(file.toString(), StandardCharsets.UTF_8,
+                            new StreamingSegmenter(actual), window, buffer);
+                    assertEquals(expected.size(), actual.size());
+                    expected.forEach((gram, count) -> assertEquals(count, actual.get(gram)));
+                }
+            }
+            assertEquals(expected.sumOfSquares(), FileHandler.readVector(file.toString()).squaredNorm());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // 测试流式读取空文件
+    @Test
+    public void testReadVector_EmptyFile() throws Exception {
+        Path file = Files.createTempFile("empty", ".txt");
+        try {
+            assertTrue(FileHandler.readVector(file.toString()).isEmpty());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package text;
+
+/**
+ * gram编码工具：把2~3个UTF-16字符打包进一个long
+ * 高16位存放gram长度，低48位依次存放字符，因此编码永远不为0
+ * <p>
+ * 词级别的分词策略（词、词组）无法按字符打包，改用最高位为1的哈希编码，与字符gram互不冲突
+ */
+public final class GramCodes {
+    private static final int LENGTH_SHIFT = 48;
+
+    private GramCodes() {
+    }
+
+    /**
+     * 打包2-gram
+     */
+    public static long pack2(char c0, char c1) {
+        return (2L << LENGTH_SHIFT) | ((long) c0 << 16) | c1;
+    }
+
+    /**
+     * 打包3-gram
+     */
+    public static long pack3(char c0, char c1, char c2) {
+        return (3L << LENGTH_SHIFT) | ((long) c0 << 32) | ((long) c1 << 16) | c2;
+    }
+
+    /**
+     * 由64位哈希生成词级编码（最高位置1，永远不为0）
+     */
+    public static long hashed(long hash) {
+        return (hash >>> 1) | Long.MIN_VALUE;
+    }
+
+    /**
+     * 对字符数组的一段计算词级编码
+     */
+    public static long hashed(char[] text, int start, int end) {
+        long h = 0xcbf29ce484222325L; // FNV-1a
+        for (int i = start; i < end; i++) {
+            h = (h ^ text[i]) * 0x100000001b3L;
+        }
+        return hashed(MinHasher.mix(h));
+    }
+
+    /**
+     * 把两个词级编码组合为词组编码（有序）
+     */
+    public static long combine(long first, long second) {
+        return hashed(MinHasher.mix(first * 0x9e3779b97f4a7c15L + second));
+    }
+
+    /**
+     * 是否为词级哈希编码
+     */
+    public static boolean isHashed(long code) {
+        return code < 0;
+    }
+
+    /**
+     * 读取gram长度（2或3），词级编码返回0
+     */
+    public static int length(long code) {
+        return isHashed(code) ? 0 : (int) (code >>> LENGTH_SHIFT);
+    }
+
+    /**
+     * 还原为字符串（仅用于调试和兼容旧接口），词级编码无法还原，输出十六进制
+     */
+    public static String toString(long code) {
+        if (isHashed(code)) {
+            return "#" + Long.toHexString(code);
+        }
+        int length = length(code);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (code >>> (16 * (length - 1 - i)));
+        }
+        return new String(chars);
+    }
+}
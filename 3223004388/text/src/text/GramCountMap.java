@@ -0,0 +1,290 @@
+package text;
+
+import java.util.Arrays;
+
+/**
+ * gram编码到出现次数的开放寻址哈希表（线性探测）
+ * 键和值分别存放在long[]与int[]中，计数过程不产生任何装箱对象
+ * gram编码永远不为0，因此用0表示空槽
+ */
+public class GramCountMap implements GramSink {
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] counts;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public GramCountMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize 预计的不同gram数量
+     */
+    public GramCountMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / LOAD_FACTOR), 8) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * 作为GramSink使用时，每收到一个gram计数加一
+     */
+    @Override
+    public void accept(long gram) {
+        add(gram, 1);
+    }
+
+    /**
+     * 计数加一
+     */
+    public void increment(long key) {
+        add(key, 1);
+    }
+
+    /**
+     * 批量累加计数
+     * @param key gram编码（不能为0）
+     * @param delta 增量
+     */
+    public void add(long key, int delta) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("gram编码不能为0");
+        }
+        int slot = slot(key);
+        while (true) {
+            long current = keys[slot];
+            if (current == key) {
+                counts[slot] += delta;
+                return;
+            }
+            if (current == EMPTY) {
+                keys[slot] = key;
+                counts[slot] = delta;
+                if (++size > resizeThreshold) {
+                    rehash(keys.length << 1);
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * 直接设置值（用作一般的long→int映射时）
+     */
+    public void put(long key, int value) {
+        add(key, value - get(key));
+    }
+
+    /**
+     * 把另一个表的全部计数累加进来（用于合并分块统计结果）
+     */
+    public void addAll(GramCountMap other) {
+        long[] otherKeys = other.keys;
+        int[] otherCounts = other.counts;
+        for (int i = 0; i < otherKeys.length; i++) {
+            if (otherKeys[i] != EMPTY) {
+                add(otherKeys[i], otherCounts[i]);
+            }
+        }
+    }
+
+    /**
+     * 查询计数，不存在时返回0
+     */
+    public int get(long key) {
+        int slot = slot(key);
+        while (true) {
+            long current = keys[slot];
+            if (current == key) {
+                return counts[slot];
+            }
+            if (current == EMPTY) {
+                return 0;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * 不同gram的数量
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 槽位数组长度（用于估算内存占用）
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * 把全部(gram, 次数)按次数从高到低写入两个数组：次数按2的幂分档，档内顺序不限
+     * 只扫描一遍槽位数组：次数≥2的从前往后放、次数为1的从后往前放，再只对前面较小的部分分档
+     */
+    void copyByDescendingCount(long[] gramsOut, int[] countsOut) {
+        int repeated = 0;
+        int single = size;
+        for (int i = 0; i < keys.length; i++) {
+            long key = keys[i];
+            if (key == EMPTY) {
+                continue;
+            }
+            int count = counts[i];
+            if (count >= 2) {
+                gramsOut[repeated] = key;
+                countsOut[repeated++] = count;
+            } else {
+                gramsOut[--single] = key;
+                countsOut[single] = count;
+            }
+        }
+        if (repeated < 2) {
+            return;
+        }
+        // 按前导零个数计数排序，前导零越少次数越大，排在越前面
+        int[] next = new int[Integer.SIZE + 1];
+        for (int i = 0; i < repeated; i++) {
+            next[Integer.numberOfLeadingZeros(countsOut[i])]++;
+        }
+        for (int b = 0, position = 0; b < next.length; b++) {
+            int bucketSize = next[b];
+            next[b] = position;
+            position += bucketSize;
+        }
+        long[] grams = Arrays.copyOf(gramsOut, repeated);
+        int[] sortedCounts = Arrays.copyOf(countsOut, repeated);
+        for (int i = 0; i < repeated; i++) {
+            int n = next[Integer.numberOfLeadingZeros(sortedCounts[i])]++;
+            gramsOut[n] = grams[i];
+            countsOut[n] = sortedCounts[i];
+        }
+    }
+
+    /**
+     * 按编码升序排列的全部gram
+     */
+    public long[] sortedKeys() {
+        long[] result = new long[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                result[n++] = keys[i];
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * 全部计数的平方和（即未加权模长的平方）
+     */
+    public long sumOfSquares() {
+        long sum = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                sum += (long) counts[i] * counts[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 遍历所有(gram, 次数)
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    /**
+     * 遍历两个表的gram并集，不存在的一侧计数为0
+     * 每个gram恰好回调一次，无需额外构建并集集合
+     */
+    public static void forEachUnion(GramCountMap first, GramCountMap second, UnionConsumer consumer) {
+        long[] firstKeys = first.keys;
+        int[] firstCounts = first.counts;
+        for (int i = 0; i < firstKeys.length; i++) {
+            long key = firstKeys[i];
+            if (key != EMPTY) {
+                consumer.accept(key, firstCounts[i], second.get(key));
+            }
+        }
+        long[] secondKeys = second.keys;
+        int[] secondCounts = second.counts;
+        for (int i = 0; i < secondKeys.length; i++) {
+            long key = secondKeys[i];
+            if (key != EMPTY && first.get(key) == 0) {
+                consumer.accept(key, 0, secondCounts[i]);
+            }
+        }
+    }
+
+    private int slot(long key) {
+        // murmur3 fmix64，打散编码中集中在低位的字符信息
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = slot(key);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GramCountMap{size=" + size + ", capacity=" + keys.length + "}";
+    }
+
+    /**
+     * (gram, 次数) 回调
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long gram, int count);
+    }
+
+    /**
+     * 并集遍历回调
+     */
+    @FunctionalInterface
+    public interface UnionConsumer {
+        void accept(long gram, int count1, int count2);
+    }
+}
@@ -0,0 +1,65 @@
+package text;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class GramCountMapTest {
+
+    // 大量插入触发扩容后，计数应与HashMap一致
+    @Test
+    public void testCountsMatchHashMapAfterResize() {
+        GramCountMap map = new GramCountMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long gram = GramCodes.pack2((char) ('a' + random.nextInt(26)), (char) (0x4e00 + random.nextInt(500)));
+            map.increment(gram);
+            expected.merge(gram, 1, Integer::sum);
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals((long) entry.getValue(), map.get(entry.getKey()));
+        }
+        assertEquals(0, map.get(GramCodes.pack3('x', 'y', 'z')));
+    }
+
+    // 并集遍历：每个gram恰好回调一次，缺失一侧计数为0
+    @Test
+    public void testForEachUnion() {
+        GramCountMap first = new GramCountMap();
+        GramCountMap second = new GramCountMap();
+        long shared = GramCodes.pack2('人', '工');
+        long onlyFirst = GramCodes.pack2('智', '能');
+        long onlySecond = GramCodes.pack3('量', '子', '计');
+        first.add(shared, 3);
+        first.add(onlyFirst, 1);
+        second.add(shared, 2);
+        second.add(onlySecond, 5);
+
+        Map<Long, int[]> seen = new HashMap<>();
+        GramCountMap.forEachUnion(first, second, (gram, count1, count2) ->
+                assertNull(seen.put(gram, new int[]{count1, count2})));
+        assertEquals(3, seen.size());
+        assertArrayEquals(new int[]{3, 2}, seen.get(shared));
+        assertArrayEquals(new int[]{1, 0}, seen.get(onlyFirst));
+        assertArrayEquals(new int[]{0, 5}, seen.get(onlySecond));
+    }
+
+    // 批量合并等价于逐个累加
+    @Test
+    public void testAddAll() {
+        GramCountMap first = new GramCountMap();
+        GramCountMap second = new GramCountMap();
+        long gram = GramCodes.pack2('a', 'b');
+        first.add(gram, 2);
+        second.add(gram, 3);
+        second.add(GramCodes.pack2('c', 'd'), 1);
+        first.addAll(second);
+        assertEquals(5, first.get(gram));
+        assertEquals(2, first.size());
+    }
+}
@@ -0,0 +1,13 @@
+package text;
+
+/**
+ * gram编码的原始类型消费者：分词引擎直接推送long编码，避免为每个gram创建String
+ */
+@FunctionalInterface
+public interface GramSink {
+    /**
+     * 接收一个gram编码
+     * @param gram 由 {@link GramCodes} 打包的gram编码
+     */
+    void accept(long gram);
+}
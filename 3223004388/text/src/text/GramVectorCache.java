@@ -0,0 +1,269 @@
+package text;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 磁盘上的词频向量缓存，以文件内容的SHA-256为键
+ * 参考论文内容不变时，再次比对只需计算哈希并映射缓存文件，完全跳过预处理和分词
+ * <p>
+ * 缓存文件格式（大端）：
+ * <pre>
+ * 魔数 "GVEC"(4字节) | 版本(1字节) | 模长平方(8字节) | gram数n(varint)
+ * | n个gram编码（升序，与前一个编码的差值按varint编码）| n个计数（varint）
+ * </pre>
+ * 缓存目录按总字节数限制大小，超出时按最近访问时间（文件修改时间）淘汰最久未用的文件。
+ * 多个进程可以共用同一缓存目录，淘汰时跳过已被其他进程删除的文件
+ */
+public class GramVectorCache {
+    private static final int MAGIC = 0x47564543; // "GVEC"
+    private static final byte VERSION = 1;
+    private static final String SUFFIX = ".gv";
+    private static final int HASH_WINDOW_BYTES = 64 << 20;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    /**
+     * @param directory 缓存目录，不存在时自动创建
+     * @param maxBytes 缓存目录总大小上限
+     */
+    public GramVectorCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * 读取文件的词频向量：命中缓存时直接映射缓存文件，否则流式分词后写入缓存
+     */
+    public DocumentVector load(String filePath) throws IOException {
+        Path cacheFile = directory.resolve(contentHash(filePath) + variant() + SUFFIX);
+        if (Files.isRegularFile(cacheFile)) {
+            try {
+                DocumentVector vector = read(cacheFile);
+                // 更新访问时间，供LRU淘汰使用
+                Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(System.currentTimeMillis()));
+                return vector;
+            } catch (IOException | RuntimeException e) {
+                // 缓存文件损坏时丢弃并重新计算
+                Files.deleteIfExists(cacheFile);
+            }
+        }
+        DocumentVector vector = FileHandler.readVector(filePath);
+        write(cacheFile, vector);
+        try {
+            evict();
+        } catch (IOException | UncheckedIOException e) {
+            // 淘汰只是尽力而为，失败时下次写入再淘汰，不影响已经算出的结果
+        }
+        return vector;
+    }
+
+    /**
+     * 缓存键中区分分词配置的后缀：默认配置为空，保持已有缓存文件可用
+     * 非默认分词策略的结果单独存放，避免与字符n-gram向量混用；字符n-gram还受停用词表影响，
+     * 替换为内容不同的词表后按词表摘要另存
+     */
+    static String variant() {
+        if (!TextProcessor.usesCharNGrams()) {
+            return "-" + TextProcessor.getSegmenter().name();
+        }
+        String stopWords = TextProcessor.getStopWordFilter().digest();
+        return stopWords.equals(StopWordFilter.DEFAULT.digest()) ? "" : "-stop-" + stopWords;
+    }
+
+    /**
+     * 缓存目录当前占用的字节数
+     */
+    public long sizeInBytes() throws IOException {
+        long total = 0;
+        for (CachedFile file : cacheFiles()) {
+            total += file.size;
+        }
+        return total;
+    }
+
+    /**
+     * 计算文件内容的SHA-256（十六进制），按窗口映射文件逐段更新摘要
+     */
+    static String contentHash(String filePath) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JDK缺少SHA-256实现", e);
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += HASH_WINDOW_BYTES) {
+                long window = Math.min(HASH_WINDOW_BYTES, size - position);
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, window));
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >>> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    static DocumentVector read(Path cacheFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 13 || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                throw new IOException("缓存文件格式错误: " + cacheFile);
+            }
+            long squaredNorm = buffer.getLong();
+            int size = (int) readVarLong(buffer);
+            long[] keys = new long[size];
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                previous += readVarLong(buffer);
+                keys[i] = previous;
+            }
+            GramCountMap counts = new GramCountMap(size);
+            for (int i = 0; i < size; i++) {
+                counts.add(keys[i], (int) readVarLong(buffer));
+            }
+            return new DocumentVector(counts, squaredNorm);
+        }
+    }
+
+    static void write(Path cacheFile, DocumentVector vector) throws IOException {
+        // 先写临时文件再原子替换，避免并发读取到半个文件
+        Path temp = Files.createTempFile(cacheFile.getParent(), "gv", ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                GramCountMap counts = vector.counts();
+                long[] keys = counts.sortedKeys();
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeLong(vector.squaredNorm());
+                writeVarLong(out, keys.length);
+                long previous = 0;
+                for (long key : keys) {
+                    writeVarLong(out, key - previous);
+                    previous = key;
+                }
+                for (long key : keys) {
+                    writeVarLong(out, counts.get(key));
+                }
+            }
+            try {
+                Files.move(temp, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 总大小超过上限时按最近访问时间从旧到新删除缓存文件
+     */
+    private void evict() throws IOException {
+        List<CachedFile> files = cacheFiles();
+        long total = 0;
+        for (CachedFile file : files) {
+            total += file.size;
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        files.sort(Comparator.comparing(file -> file.lastModified));
+        for (CachedFile file : files) {
+            if (total <= maxBytes) {
+                break;
+            }
+            Files.deleteIfExists(file.path);
+            total -= file.size;
+        }
+    }
+
+    /**
+     * 列出缓存文件并读取大小和修改时间，每个文件只读一次属性
+     */
+    private List<CachedFile> cacheFiles() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(directory)) {
+            stream.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).forEach(paths::add);
+        }
+        return stat(paths);
+    }
+
+    /**
+     * 读取文件属性，跳过列出后已被其他进程删除的文件
+     */
+    static List<CachedFile> stat(List<Path> paths) throws IOException {
+        List<CachedFile> files = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                files.add(new CachedFile(path, attributes.size(), attributes.lastModifiedTime()));
+            } catch (NoSuchFileException e) {
+                // 其他进程刚刚淘汰了这个文件
+            }
+        }
+        return files;
+    }
+
+    static final class CachedFile {
+        final Path path;
+        final long size;
+        final FileTime lastModified;
+
+        CachedFile(Path path, long size, FileTime lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IllegalStateException("varint过长");
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package text;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class GramVectorCacheTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path workDir;
+
+    @Before
+    public void setUp() throws Exception {
+        workDir = temporaryFolder.getRoot().toPath();
+    }
+
+    private Path writeText(String name, String text) throws Exception {
+        Path file = workDir.resolve(name);
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    // 第二次读取命中缓存，向量与直接分词一致
+    @Test
+    public void testRoundTrip() throws Exception {
+        String text = "AI（人工智能）的发展始于1956年的Dartmouth会议。人工智能 人工智能 人工智能";
+        Path file = writeText("orig.txt", text);
+        GramVectorCache cache = new GramVectorCache(workDir.resolve("cache"), 1 << 20);
+
+        DocumentVector first = cache.load(file.toString());
+        DocumentVector second = cache.load(file.toString());
+        DocumentVector expected = DocumentVector.of(text);
+
+        try (Stream<Path> entries = Files.list(workDir.resolve("cache"))) {
+            assertEquals(1, entries.count());
+        }
+        assertEquals(expected.squaredNorm(), second.squaredNorm());
+        assertEquals(expected.size(), second.size());
+        expected.counts().forEach((gram, count) -> assertEquals(count, second.counts().get(gram)));
+        assertEquals(first.squaredNorm(), second.squaredNorm());
+    }
+
+    // 内容相同的不同文件共享同一个缓存项
+    @Test
+    public void testKeyedByContent() throws Exception {
+        Path a = writeText("a.txt", "数据挖掘是从大量数据中提取价值信息的过程");
+        Path b = writeText("b.txt", "数据挖掘是从大量数据中提取价值信息的过程");
+        assertEquals(GramVectorCache.contentHash(a.toString()), GramVectorCache.contentHash(b.toString()));
+    }
+
+    // 换用不同的停用词表后不复用旧词表下的缓存向量；内容相同的词表共用缓存
+    @Test
+    public void testKeyedByStopWords() throws Exception {
+        String text = "数据挖掘是从大量数据中提取价值信息的过程";
+        Path file = writeText("orig.txt", text);
+        GramVectorCache cache = new GramVectorCache(workDir.resolve("cache"), 1 << 20);
+        DocumentVector withDefault = cache.load(file.toString());
+        StopWordFilter previous = TextProcessor.getStopWordFilter();
+        try {
+            TextProcessor.setStopWordFilter(StopWordFilter.of(Arrays.asList("数据")));
+            DocumentVector filtered = cache.load(file.toString());
+            assertEquals(DocumentVector.of(text).squaredNorm(), filtered.squaredNorm());
+            assertTrue(withDefault.squaredNorm() != filtered.squaredNorm());
+
+            TextProcessor.setStopWordFilter(StopWordFilter.of(Arrays.asList("数据", "数据")));
+            cache.load(file.toString());
+            try (Stream<Path> entries = Files.list(workDir.resolve("cache"))) {
+                assertEquals(2, entries.count());
+            }
+        } finally {
+            TextProcessor.setStopWordFilter(previous);
+        }
+        assertEquals(withDefault.squaredNorm(), cache.load(file.toString()).squaredNorm());
+    }
+
+    // 超出容量时淘汰最久未访问的缓存文件
+    @Test
+    public void testEvictionKeepsSizeBounded() throws Exception {
+        GramVectorCache cache = new GramVectorCache(workDir.resolve("cache"), 600);
+        for (int i = 0; i < 10; i++) {
+            Path file = writeText("doc" + i + ".txt", "第" + i + "篇论文讨论人工智能在医疗领域的应用" + i);
+            cache.load(file.toString());
+        }
+        assertTrue(cache.sizeInBytes() <= 600);
+    }
+
+    // 列出后被其他进程删除的缓存文件在统计大小时跳过，不会使读取失败
+    @Test
+    public void testStatSkipsVanishedFiles() throws Exception {
+        Path kept = writeText("kept.gv", "保留");
+        Path vanished = workDir.resolve("vanished.gv");
+        List<GramVectorCache.CachedFile> files = GramVectorCache.stat(Arrays.asList(vanished, kept));
+        assertEquals(1, files.size());
+        assertEquals(kept, files.get(0).path);
+        assertEquals(Files.size(kept), files.get(0).size);
+    }
+
+    // 损坏的缓存文件被丢弃并重新计算
+    @Test
+    public void testCorruptedEntryIsRebuilt() throws Exception {
+        String text = "深度学习框架是构建神经网络的工具";
+        Path file = writeText("orig.txt", text);
+        Path cacheDir = workDir.resolve("cache");
+        GramVectorCache cache = new GramVectorCache(cacheDir, 1 << 20);
+        cache.load(file.toString());
+        Path entry = cacheDir.resolve(GramVectorCache.contentHash(file.toString()) + ".gv");
+        Files.write(entry, new byte[]{1, 2, 3});
+
+        assertEquals(DocumentVector.of(text).squaredNorm(), cache.load(file.toString()).squaredNorm());
+    }
+}
@@ -0,0 +1,165 @@
+package text;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 内存映射的IDF表：gram编码升序排列，查找一个gram为一次二分查找
+ * 表只映射不读入，堆上只有几个缓冲区对象，多个进程可共享同一份页缓存；可被多线程并发读取
+ * <p>
+ * 文件格式（大端）：
+ * <pre>
+ * 魔数 "IDFT"(4字节) | 版本(4字节) | 论文数N(8字节) | 条目数n(8字节) | 缺省IDF(float)
+ * | 分词策略名长度(4字节) | 分词策略名(UTF-8，补0到8字节对齐)
+ * | n个gram编码(long，升序) | n个IDF(float，与编码一一对应)
+ * </pre>
+ * IDF按平滑公式 ln((1 + N) / (1 + df)) + 1 计算，出现在所有论文中的gram权重为1
+ */
+public final class IdfTable {
+    static final int MAGIC = 0x49444654; // "IDFT"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+
+    private final LongBuffer keys;
+    private final FloatBuffer values;
+    private final int size;
+    private final long documents;
+    private final double missingIdf;
+    private final String segmenter;
+
+    private IdfTable(LongBuffer keys, FloatBuffer values, long documents, double missingIdf, String segmenter) {
+        this.keys = keys;
+        this.values = values;
+        this.size = keys.capacity();
+        this.documents = documents;
+        this.missingIdf = missingIdf;
+        this.segmenter = segmenter;
+    }
+
+    /**
+     * 映射IDF表文件
+     * @throws IOException 文件不存在、格式错误或超过单次映射上限（约2.6亿个gram）
+     */
+    public static IdfTable open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("IDF表格式错误: " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, 4096));
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("IDF表格式错误: " + file);
+            }
+            long documents = header.getLong();
+            long entries = header.getLong();
+            float missingIdf = header.getFloat();
+            int nameLength = header.getInt();
+            if (nameLength < 0 || HEADER_BYTES + nameLength > header.limit()) {
+                throw new IOException("IDF表格式错误: " + file);
+            }
+            byte[] name = new byte[nameLength];
+            header.get(name);
+            long keysOffset = keysOffset(nameLength);
+            if (entries < 0 || entries * Long.BYTES > Integer.MAX_VALUE) {
+                throw new IOException("IDF表条目过多: " + entries);
+            }
+            if (keysOffset + entries * (Long.BYTES + Float.BYTES) != fileSize) {
+                throw new IOException("IDF表长度不一致: " + file);
+            }
+            // 编码区与IDF区分别映射，关闭通道后映射仍然有效
+            LongBuffer keys = channel.map(FileChannel.MapMode.READ_ONLY, keysOffset, entries * Long.BYTES)
+                    .asLongBuffer();
+            FloatBuffer values = channel.map(FileChannel.MapMode.READ_ONLY,
+                    keysOffset + entries * Long.BYTES, entries * Float.BYTES).asFloatBuffer();
+            return new IdfTable(keys, values, documents, missingIdf, new String(name, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 平滑IDF：ln((1 + N) / (1 + df)) + 1
+     */
+    static double idf(long documents, long documentFrequency) {
+        return Math.log((1.0 + documents) / (1.0 + documentFrequency)) + 1.0;
+    }
+
+    static int keysOffset(int nameLength) {
+        return (HEADER_BYTES + nameLength + 7) & ~7;
+    }
+
+    /**
+     * 查找gram的IDF，表中没有时返回 {@link #missingIdf()}
+     */
+    public double idf(long gram) {
+        int index = search(0, size, gram);
+        return index < size && keys.get(index) == gram ? values.get(index) : missingIdf;
+    }
+
+    /**
+     * 为升序排列的一组gram批量查找IDF：每次查找从上一个位置向后倍增再二分，
+     * 整体代价约为 m·log(n/m)，比逐个二分更少触及映射页
+     */
+    void idf(long[] sortedKeys, double[] into) {
+        int from = 0;
+        for (int i = 0; i < sortedKeys.length; i++) {
+            long gram = sortedKeys[i];
+            from = seek(from, gram);
+            into[i] = from < size && keys.get(from) == gram ? values.get(from) : missingIdf;
+        }
+    }
+
+    /**
+     * 构建表时统计的论文数
+     */
+    public long documentCount() {
+        return documents;
+    }
+
+    /**
+     * 表中的gram数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 表中没有的gram使用的IDF
+     */
+    public double missingIdf() {
+        return missingIdf;
+    }
+
+    /**
+     * 构建表时使用的分词策略名，查重时必须使用同一策略
+     */
+    public String segmenter() {
+        return segmenter;
+    }
+
+    // 从from开始第一个不小于gram的位置（倍增确定区间后二分）
+    private int seek(int from, long gram) {
+        int bound = 1;
+        while (from + bound < size && keys.get(from + bound) < gram) {
+            bound <<= 1;
+        }
+        return search(from + (bound >> 1), Math.min(from + bound, size), gram);
+    }
+
+    // [lo, hi) 中第一个不小于gram的位置
+    private int search(int lo, int hi, long gram) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys.get(mid) < gram) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
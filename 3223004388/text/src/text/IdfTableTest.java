@@ -0,0 +1,127 @@
+package text;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class IdfTableTest {
+    // 所有论文共有的套话
+    private static final String BOILERPLATE = "本文研究了相关问题并提出了改进方法，感谢导师的悉心指导和同学们的帮助。";
+    private static final String[] TOPICS = {
+            "深度学习框架是构建神经网络的工具，主流框架简化了模型开发流程。",
+            "数据挖掘是从大量数据中提取价值信息的过程，结合统计学和数据库技术。",
+            "人工智能的发展分为弱人工智能、强人工智能和超人工智能三个阶段。",
+            "区块链通过分布式账本和共识机制保证交易记录不可篡改。",
+            "量子计算利用叠加和纠缠在特定问题上超越经典计算机。"
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = temporaryFolder.getRoot().toPath();
+        for (int i = 0; i < TOPICS.length; i++) {
+            Files.write(directory.resolve("paper" + i + ".txt"),
+                    (BOILERPLATE + TOPICS[i]).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // 映射后的查找结果与内存中的文档频率一致，缺失的gram取缺省值
+    @Test
+    public void testLookupMatchesDocumentFrequencies() throws IOException {
+        CorpusStatistics statistics = CorpusStatistics.build(directory);
+        assertEquals(TOPICS.length, statistics.documentCount());
+        Path file = directory.resolve("corpus.idf");
+        statistics.write(file, 1);
+        IdfTable table = IdfTable.open(file);
+        assertEquals(statistics.size(), table.size());
+        assertEquals("char", table.segmenter());
+
+        SparseGramVector all = SparseGramVector.of(BOILERPLATE + String.join("", TOPICS) + "从未出现的内容");
+        double[] batch = new double[all.size()];
+        table.idf(all.keys(), batch);
+        for (int i = 0; i < all.size(); i++) {
+            long gram = all.keyAt(i);
+            int df = statistics.documentFrequency(gram);
+            double expected = df == 0 ? table.missingIdf() : (float) IdfTable.idf(TOPICS.length, df);
+            assertEquals(expected, table.idf(gram), 0.0);
+            assertEquals(expected, batch[i], 0.0);
+        }
+        // 出现在所有论文中的gram权重为1
+        assertEquals(1.0, table.idf(GramCodes.pack2('本', '文')), 1e-6);
+        assertEquals(IdfTable.idf(TOPICS.length, 0), table.idf(GramCodes.pack2('从', '未')), 1e-6);
+    }
+
+    // 按最小文档频率裁剪后，被裁掉的gram取 df = minDf-1 的IDF
+    @Test
+    public void testMinimumDocumentFrequencyPrunesRareGrams() throws IOException {
+        CorpusStatistics statistics = CorpusStatistics.build(directory);
+        Path file = directory.resolve("pruned.idf");
+        statistics.write(file, 2);
+        IdfTable table = IdfTable.open(file);
+        assertTrue(table.size() < statistics.size());
+        assertEquals((float) IdfTable.idf(TOPICS.length, 1), table.missingIdf(), 0.0);
+        assertEquals(1.0, table.idf(GramCodes.pack2('导', '师')), 1e-6);
+    }
+
+    // 随机键的表：批量查找与逐个二分结果一致
+    @Test
+    public void testBatchLookupOnRandomKeys() throws IOException {
+        CorpusStatistics statistics = new CorpusStatistics();
+        Random random = new Random(20);
+        for (int doc = 0; doc < 50; doc++) {
+            GramCountMap counts = new GramCountMap();
+            for (int k = 0; k < 200; k++) {
+                counts.increment(random.nextInt(5000) * 7919L - 20_000_000L);
+            }
+            statistics.add(new DocumentVector(counts));
+        }
+        Path file = directory.resolve("random.idf");
+        statistics.write(file, 1);
+        IdfTable table = IdfTable.open(file);
+        long[] probes = new long[3000];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = random.nextInt(6000) * 7919L - 20_000_000L + (random.nextInt(4) == 0 ? 1 : 0);
+        }
+        Arrays.sort(probes);
+        double[] batch = new double[probes.length];
+        table.idf(probes, batch);
+        for (int i = 0; i < probes.length; i++) {
+            assertEquals(table.idf(probes[i]), batch[i], 0.0);
+        }
+    }
+
+    // 共有套话被降权：与只看词频的加权余弦相比，只共享模板的两篇论文相似度明显下降
+    @Test
+    public void testBoilerplateIsDownWeighted() throws IOException {
+        Path file = directory.resolve("corpus.idf");
+        CorpusStatistics.build(directory).write(file, 1);
+        IdfTable table = IdfTable.open(file);
+        String a = BOILERPLATE + TOPICS[0];
+        String b = BOILERPLATE + TOPICS[1];
+        double plain = SimilarityCalculator.calculateSimilarity(a, b);
+        double tfIdf = SimilarityCalculator.calculateTfIdfSimilarity(a, b, table);
+        assertTrue(plain + " vs " + tfIdf, tfIdf < plain - 0.1);
+        assertEquals(1.0, SimilarityCalculator.calculateTfIdfSimilarity(a, a, table), 1e-9);
+        assertEquals(0.0, SimilarityCalculator.calculateTfIdfSimilarity(a, "", table), 1e-9);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsCorruptFile() throws IOException {
+        Path file = directory.resolve("broken.idf");
+        Files.write(file, new byte[64]);
+        IdfTable.open(file);
+    }
+}
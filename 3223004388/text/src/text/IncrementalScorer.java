@@ -0,0 +1,233 @@
+package text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 提交稿修订后的增量重算
+ * <p>
+ * gram只由连续的有效字符组成，一处修改只会影响窗口与修改区间相交的2-gram和3-gram，
+ * 因此只需从旧文本中减去这些gram、再把新文本中对应位置的gram加回来。
+ * 点积和模长按与 {@link SimilarityCalculator} 相同的口径用long精确维护，
+ * 每次修订耗时与修改量成正比，结果与对新全文重新计算逐位一致。只适用于默认的字符n-gram分词策略
+ */
+public class IncrementalScorer {
+    // 两处修改之间相隔不足该字符数时合并处理，避免同一个gram被两处修改重复增减
+    private static final int MERGE_GAP = 3;
+
+    private final DocumentVector original;
+    private final GramCountMap originalCounts;
+    private final GramCountMap counts;
+    private String text;
+    private int distinct;
+    private long squaredNorm;
+    private long dotLow;
+    private long dotHigh;
+    private long highSquaresOriginal;
+    private long highSquaresSubmission;
+    private char[] scratch = new char[64];
+
+    /**
+     * @param original 原文词频向量
+     * @param submission 提交稿全文（首次全量分词）
+     */
+    public IncrementalScorer(DocumentVector original, String submission) {
+        if (!TextProcessor.usesCharNGrams()) {
+            throw new IllegalStateException("增量重算只支持字符n-gram分词策略");
+        }
+        this.original = original;
+        this.originalCounts = original.counts();
+        this.text = submission == null ? "" : submission;
+        this.counts = new GramCountMap();
+        forEachGram(text, 0, text.length(), +1);
+    }
+
+    /**
+     * 当前相似度（保留两位小数）
+     */
+    public double score() {
+        return Math.round(cosine() * 100.0) / 100.0;
+    }
+
+    /**
+     * 未舍入的加权余弦相似度，与 {@link SimilarityCalculator#cosine(DocumentVector, DocumentVector)} 逐位一致
+     */
+    double cosine() {
+        // 处理空文本
+        if (original.isEmpty() && distinct == 0) {
+            return 1.00;
+        }
+        if (original.isEmpty() || distinct == 0) {
+            return 0.00;
+        }
+        return SimilarityCalculator.weightedCosine(dotLow, dotHigh,
+                original.squaredNorm(), highSquaresOriginal, squaredNorm, highSquaresSubmission);
+    }
+
+    /**
+     * 提交稿当前的词频向量（按需复制出计数为正的gram）
+     */
+    public DocumentVector vector() {
+        GramCountMap copy = new GramCountMap(distinct);
+        counts.forEach((gram, count) -> {
+            if (count > 0) {
+                copy.add(gram, count);
+            }
+        });
+        return new DocumentVector(copy, squaredNorm);
+    }
+
+    public String text() {
+        return text;
+    }
+
+    /**
+     * 用修订后的全文更新，修改区间由公共前缀和公共后缀确定
+     * （只比较字符，不分词；适合调用方没有现成差异信息的场景）
+     */
+    public double revise(String revised) {
+        String next = revised == null ? "" : revised;
+        int prefix = 0;
+        int limit = Math.min(text.length(), next.length());
+        while (prefix < limit && text.charAt(prefix) == next.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && text.charAt(text.length() - 1 - suffix) == next.charAt(next.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return revise(next, Collections.singletonList(
+                new Change(prefix, text.length() - suffix, prefix, next.length() - suffix)));
+    }
+
+    /**
+     * 按差异区间更新：每个区间表示旧文本 [oldStart, oldEnd) 被替换为新文本 [newStart, newEnd)
+     * 区间之外的内容必须在新旧文本中一致，且各区间互不重叠
+     * @return 修订后的相似度（保留两位小数）
+     */
+    public double revise(String revised, List<Change> changes) {
+        String next = revised == null ? "" : revised;
+        List<Change> merged = merge(changes);
+        for (Change change : merged) {
+            forEachGram(text, change.oldStart, change.oldEnd, -1);
+        }
+        for (Change change : merged) {
+            forEachGram(next, change.newStart, change.newEnd, +1);
+        }
+        text = next;
+        return score();
+    }
+
+    private static List<Change> merge(List<Change> changes) {
+        List<Change> sorted = new ArrayList<>(changes);
+        sorted.sort(Comparator.comparingInt(change -> change.oldStart));
+        List<Change> merged = new ArrayList<>();
+        for (Change change : sorted) {
+            if (!merged.isEmpty()) {
+                Change last = merged.get(merged.size() - 1);
+                if (change.oldStart < last.oldEnd) {
+                    throw new IllegalArgumentException("修改区间重叠: " + last + " " + change);
+                }
+                if (change.oldStart - last.oldEnd < MERGE_GAP) {
+                    merged.set(merged.size() - 1, new Change(last.oldStart, change.oldEnd, last.newStart, change.newEnd));
+                    continue;
+                }
+            }
+            merged.add(change);
+        }
+        return merged;
+    }
+
+    /**
+     * 对 source 中窗口与 [from, to) 相交的gram（插入点 from == to 时为跨过插入点的gram）逐个增减计数
+     * 只需扫描区间两侧各两个字符
+     */
+    private void forEachGram(String source, int from, int to, int delta) {
+        int lo = Math.max(0, from - 2);
+        int hi = Math.min(source.length(), to + 2);
+        if (scratch.length < hi - lo) {
+            scratch = new char[Math.max(hi - lo, scratch.length << 1)];
+        }
+        char[] chars = scratch;
+        for (int p = lo; p < hi; p++) {
+            chars[p - lo] = TextNormalizer.normalizeChar(source.charAt(p));
+        }
+        StopWordFilter filter = TextProcessor.getStopWordFilter();
+        int run = 0;
+        for (int p = lo; p < hi; p++) {
+            int i = p - lo;
+            if (chars[i] == ' ') {
+                run = 0;
+                continue;
+            }
+            run++;
+            if (p < from) {
+                continue; // 窗口结束于修改区间之前
+            }
+            if (run >= 2 && p - 1 < to && filter.isValid(chars, i - 1, 2)) {
+                update(GramCodes.pack2(chars[i - 1], chars[i]), delta);
+            }
+            if (run >= 3 && p - 2 < to && filter.isValid(chars, i - 2, 3)) {
+                update(GramCodes.pack3(chars[i - 2], chars[i - 1], chars[i]), delta);
+            }
+        }
+    }
+
+    private void update(long gram, int delta) {
+        int before = counts.get(gram);
+        int after = before + delta;
+        int other = originalCounts.get(gram);
+        contribute(before, other, -1);
+        contribute(after, other, +1);
+        counts.add(gram, delta);
+        if (before == 0) {
+            distinct++;
+        } else if (after == 0) {
+            distinct--;
+        }
+    }
+
+    // 一个gram对各累加量的贡献，sign为-1时撤销
+    private void contribute(long count, long other, int sign) {
+        squaredNorm += sign * count * count;
+        if (count == 0 || other == 0) {
+            return;
+        }
+        // 两侧次数均≥2的高频gram单独累加，与SimilarityCalculator的加权规则一致
+        if (count >= 2 && other >= 2) {
+            dotHigh += sign * count * other;
+            highSquaresSubmission += sign * count * count;
+            highSquaresOriginal += sign * other * other;
+        } else {
+            dotLow += sign * count * other;
+        }
+    }
+
+    /**
+     * 一处修改：旧文本 [oldStart, oldEnd) 对应新文本 [newStart, newEnd)
+     */
+    public static final class Change {
+        private final int oldStart;
+        private final int oldEnd;
+        private final int newStart;
+        private final int newEnd;
+
+        public Change(int oldStart, int oldEnd, int newStart, int newEnd) {
+            if (oldStart < 0 || oldEnd < oldStart || newStart < 0 || newEnd < newStart) {
+                throw new IllegalArgumentException("非法的修改区间");
+            }
+            this.oldStart = oldStart;
+            this.oldEnd = oldEnd;
+            this.newStart = newStart;
+            this.newEnd = newEnd;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + oldStart + ", " + oldEnd + ") -> [" + newStart + ", " + newEnd + ")";
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package text;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static text.TextTestSupport.randomText;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class IncrementalScorerTest {
+    private static final String ALPHABET = "人工智能数据的是了AbC1 ，。\n";
+
+    private static void assertMatchesFullRecompute(DocumentVector original, IncrementalScorer scorer) {
+        DocumentVector full = DocumentVector.of(scorer.text());
+        assertEquals(Double.doubleToLongBits(SimilarityCalculator.cosine(original, full)),
+                Double.doubleToLongBits(scorer.cosine()));
+        assertEquals(full.squaredNorm(), scorer.vector().squaredNorm());
+        assertEquals(full.size(), scorer.vector().size());
+    }
+
+    // 随机插入、删除、替换后，增量结果与对新全文重新计算逐位一致
+    @Test
+    public void testRandomRevisionsMatchFullRecompute() {
+        Random random = new Random(18);
+        for (int round = 0; round < 50; round++) {
+            DocumentVector original = DocumentVector.of(randomText(random, ALPHABET, 300));
+            IncrementalScorer scorer = new IncrementalScorer(original, randomText(random, ALPHABET, 300));
+            assertMatchesFullRecompute(original, scorer);
+            for (int edit = 0; edit < 40; edit++) {
+                String text = scorer.text();
+                int start = random.nextInt(text.length() + 1);
+                int end = Math.min(text.length(), start + random.nextInt(6));
+                String revised = text.substring(0, start) + randomText(random, ALPHABET, random.nextInt(6)) + text.substring(end);
+                scorer.revise(revised);
+                assertMatchesFullRecompute(original, scorer);
+            }
+        }
+    }
+
+    // 多处相邻修改一起提交（间隔很近时会被合并）
+    @Test
+    public void testMultipleChanges() {
+        DocumentVector original = DocumentVector.of("人工智能在医疗领域的应用，人工智能在教育领域的应用。");
+        IncrementalScorer scorer = new IncrementalScorer(original, "人工智能在医疗领域的应用。");
+        // "医疗" → "教育"，并在句号前插入"很广"
+        String revised = "人工智能在教育领域的应用很广。";
+        scorer.revise(revised, Arrays.asList(
+                new IncrementalScorer.Change(5, 7, 5, 7),
+                new IncrementalScorer.Change(12, 12, 12, 14)));
+        assertEquals(revised, scorer.text());
+        assertMatchesFullRecompute(original, scorer);
+        assertEquals(SimilarityCalculator.calculateSimilarity(original, DocumentVector.of(revised)), scorer.score(), 0.0);
+    }
+
+    @Test
+    public void testRevisingToEmpty() {
+        DocumentVector original = DocumentVector.of("人工智能");
+        IncrementalScorer scorer = new IncrementalScorer(original, "人工智能");
+        scorer.revise("");
+        assertEquals(0.00, scorer.score(), 0.0);
+        scorer.revise("人工智能");
+        assertMatchesFullRecompute(original, scorer);
+    }
+}
@@ -0,0 +1,278 @@
+package text;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * gram倒排索引：gram编码 → 倒排表（文档编号, 出现次数）
+ * 查询时只累加与待检论文共享gram的文档，不与整个参考库逐篇比较
+ * 正排向量仍由 {@link CorpusIndex} 保存，用于阈值模式下的精确验证
+ */
+public class InvertedGramIndex {
+    private static final int INITIAL_POSTING_CAPACITY = 4;
+
+    private final CorpusIndex corpus;
+    // gram编码 → 倒排表编号+1（复用long→int开放寻址表）
+    private final GramCountMap listIds = new GramCountMap();
+    private int[][] postingDocs = new int[64][];
+    private int[][] postingCounts = new int[64][];
+    private int[] postingSizes = new int[64];
+    private int listCount;
+    // 每篇文档的最大词频和总词频，用于长度过滤
+    private int[] maxCounts = new int[64];
+    private long[] totalCounts = new long[64];
+
+    public InvertedGramIndex() {
+        this(new CorpusIndex());
+    }
+
+    /**
+     * 为已有的参考库建立倒排索引
+     */
+    public InvertedGramIndex(CorpusIndex corpus) {
+        this.corpus = corpus;
+        for (int docId = 0; docId < corpus.size(); docId++) {
+            index(docId, corpus.vector(docId));
+        }
+    }
+
+    /**
+     * 读取目录构建参考库并建立倒排索引
+     */
+    public static InvertedGramIndex build(Path directory) throws IOException {
+        return new InvertedGramIndex(CorpusIndex.build(directory));
+    }
+
+    /**
+     * 加入一篇参考论文
+     */
+    public void add(String name, String text) {
+        add(name, DocumentVector.of(text));
+    }
+
+    public void add(String name, DocumentVector vector) {
+        corpus.add(name, vector);
+        index(corpus.size() - 1, vector);
+    }
+
+    public int size() {
+        return corpus.size();
+    }
+
+    public CorpusIndex corpus() {
+        return corpus;
+    }
+
+    /**
+     * 精确检索：返回得分最高的K篇（只有与查询共享gram的文档参与打分）
+     * 空查询不与任何文档共享gram，返回空列表
+     */
+    public List<CorpusIndex.Match> search(String query, int topK) {
+        return search(DocumentVector.of(query), topK);
+    }
+
+    public List<CorpusIndex.Match> search(DocumentVector query, int topK) {
+        if (topK <= 0 || query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int docCount = corpus.size();
+        long[] dotLow = new long[docCount];
+        long[] dotHigh = new long[docCount];
+        long[] highSquaresQuery = new long[docCount];
+        long[] highSquaresDoc = new long[docCount];
+        int[] touched = new int[docCount];
+        int[] touchedCount = new int[1];
+        boolean[] seen = new boolean[docCount];
+
+        // 按gram遍历倒排表累加点积，同时记录高频gram对模长的修正
+        query.counts().forEach((gram, queryCount) -> {
+            int listId = listIds.get(gram) - 1;
+            if (listId < 0) {
+                return;
+            }
+            int[] docs = postingDocs[listId];
+            int[] counts = postingCounts[listId];
+            for (int i = 0, n = postingSizes[listId]; i < n; i++) {
+                int docId = docs[i];
+                int docCountOfGram = counts[i];
+                if (!seen[docId]) {
+                    seen[docId] = true;
+                    touched[touchedCount[0]++] = docId;
+                }
+                // 对高频gram（出现次数≥2）增加权重
+                if (queryCount >= 2 && docCountOfGram >= 2) {
+                    dotHigh[docId] += (long) queryCount * docCountOfGram;
+                    highSquaresQuery[docId] += (long) queryCount * queryCount;
+                    highSquaresDoc[docId] += (long) docCountOfGram * docCountOfGram;
+                } else {
+                    dotLow[docId] += (long) queryCount * docCountOfGram;
+                }
+            }
+        });
+
+        PriorityQueue<CorpusIndex.Match> heap = new PriorityQueue<>(topK + 1);
+        for (int i = 0; i < touchedCount[0]; i++) {
+            int docId = touched[i];
+            double score = SimilarityCalculator.weightedCosine(dotLow[docId], dotHigh[docId],
+                    query.squaredNorm(), highSquaresQuery[docId],
+                    corpus.vector(docId).squaredNorm(), highSquaresDoc[docId]);
+            offer(heap, topK, new CorpusIndex.Match(docId, corpus.name(docId), score));
+        }
+        List<CorpusIndex.Match> result = new ArrayList<>(heap);
+        result.sort(Collections.reverseOrder());
+        return result;
+    }
+
+    /**
+     * 阈值检索：返回相似度不低于threshold的全部文档（按得分降序）
+     * <p>
+     * 剪枝依据：高频权重只在点积上乘1.2，且加权模长不小于未加权模长，
+     * 因此加权相似度 ≤ 1.2 × 普通余弦。
+     * <ul>
+     * <li>前缀过滤：查询gram按倒排表长度从长到短尽量放入"后缀"集合S，
+     * 只要 1.2 × |q_S| / |q| &lt; threshold，仅与S共享gram的文档不可能达到阈值，
+     * 候选文档只需从其余（较稀有的）前缀gram的倒排表中收集</li>
+     * <li>长度过滤：点积 ≤ min(max(q)·Σd, max(d)·Σq)，由此得到的上界低于阈值的候选直接跳过</li>
+     * </ul>
+     * 通过过滤的候选再用正排向量精确计算
+     */
+    public List<CorpusIndex.Match> searchAtLeast(DocumentVector query, double threshold) {
+        if (threshold <= 0) {
+            return search(query, corpus.size());
+        }
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int gramCount = query.size();
+        long[] grams = new long[gramCount];
+        int[] counts = new int[gramCount];
+        long[] order = new long[gramCount];
+        int[] cursor = new int[1];
+        int[] queryMax = new int[1];
+        long[] queryTotal = new long[1];
+        query.counts().forEach((gram, count) -> {
+            int i = cursor[0]++;
+            grams[i] = gram;
+            counts[i] = count;
+            int listId = listIds.get(gram) - 1;
+            int length = listId < 0 ? 0 : postingSizes[listId];
+            // 高32位为倒排表长度，低32位为下标，排序后按长度升序
+            order[i] = ((long) length << 32) | i;
+            queryMax[0] = Math.max(queryMax[0], count);
+            queryTotal[0] += count;
+        });
+        Arrays.sort(order);
+
+        // 从最长的倒排表开始放入后缀，直到剩余质量的上界达到阈值
+        double queryNorm = Math.sqrt(query.squaredNorm());
+        double budget = threshold * queryNorm / SimilarityCalculator.HIGH_FREQUENCY_WEIGHT;
+        double budgetSquare = budget * budget;
+        boolean[] inSuffix = new boolean[gramCount];
+        long suffixSquares = 0;
+        for (int k = gramCount - 1; k >= 0; k--) {
+            int i = (int) order[k];
+            long square = (long) counts[i] * counts[i];
+            if (suffixSquares + square < budgetSquare) {
+                suffixSquares += square;
+                inSuffix[i] = true;
+            }
+        }
+
+        // 从前缀gram的倒排表收集候选
+        int docCount = corpus.size();
+        boolean[] candidate = new boolean[docCount];
+        int[] candidates = new int[docCount];
+        int candidateCount = 0;
+        for (int i = 0; i < gramCount; i++) {
+            if (inSuffix[i]) {
+                continue;
+            }
+            int listId = listIds.get(grams[i]) - 1;
+            if (listId < 0) {
+                continue;
+            }
+            int[] docs = postingDocs[listId];
+            for (int p = 0, n = postingSizes[listId]; p < n; p++) {
+                int docId = docs[p];
+                if (!candidate[docId]) {
+                    candidate[docId] = true;
+                    candidates[candidateCount++] = docId;
+                }
+            }
+        }
+
+        List<CorpusIndex.Match> result = new ArrayList<>();
+        for (int i = 0; i < candidateCount; i++) {
+            int docId = candidates[i];
+            DocumentVector vector = corpus.vector(docId);
+            double dotBound = Math.min((double) queryMax[0] * totalCounts[docId],
+                    (double) maxCounts[docId] * queryTotal[0]);
+            double upperBound = SimilarityCalculator.HIGH_FREQUENCY_WEIGHT * dotBound
+                    / (queryNorm * Math.sqrt(vector.squaredNorm()));
+            if (upperBound < threshold) {
+                continue;
+            }
+            double score = SimilarityCalculator.cosine(query.sparse(), vector.sparse());
+            if (score >= threshold) {
+                result.add(new CorpusIndex.Match(docId, corpus.name(docId), score));
+            }
+        }
+        result.sort(Collections.reverseOrder());
+        return result;
+    }
+
+    private static void offer(PriorityQueue<CorpusIndex.Match> heap, int topK, CorpusIndex.Match match) {
+        if (heap.size() < topK) {
+            heap.add(match);
+        } else if (match.compareTo(heap.peek()) > 0) {
+            heap.poll();
+            heap.add(match);
+        }
+    }
+
+    private void index(int docId, DocumentVector vector) {
+        if (docId >= maxCounts.length) {
+            int capacity = Math.max(docId + 1, maxCounts.length << 1);
+            maxCounts = Arrays.copyOf(maxCounts, capacity);
+            totalCounts = Arrays.copyOf(totalCounts, capacity);
+        }
+        vector.counts().forEach((gram, count) -> {
+            int listId = listIds.get(gram) - 1;
+            if (listId < 0) {
+                listId = newList();
+                listIds.add(gram, listId + 1);
+            }
+            append(listId, docId, count);
+            maxCounts[docId] = Math.max(maxCounts[docId], count);
+            totalCounts[docId] += count;
+        });
+    }
+
+    private int newList() {
+        if (listCount == postingSizes.length) {
+            int capacity = listCount << 1;
+            postingDocs = Arrays.copyOf(postingDocs, capacity);
+            postingCounts = Arrays.copyOf(postingCounts, capacity);
+            postingSizes = Arrays.copyOf(postingSizes, capacity);
+        }
+        postingDocs[listCount] = new int[INITIAL_POSTING_CAPACITY];
+        postingCounts[listCount] = new int[INITIAL_POSTING_CAPACITY];
+        return listCount++;
+    }
+
+    private void append(int listId, int docId, int count) {
+        int size = postingSizes[listId];
+        if (size == postingDocs[listId].length) {
+            postingDocs[listId] = Arrays.copyOf(postingDocs[listId], size << 1);
+            postingCounts[listId] = Arrays.copyOf(postingCounts[listId], size << 1);
+        }
+        postingDocs[listId][size] = docId;
+        postingCounts[listId][size] = count;
+        postingSizes[listId] = size + 1;
+    }
+}
@@ -0,0 +1,72 @@
+package text;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static text.TextTestSupport.randomText;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class InvertedGramIndexTest {
+    private static final String CHARS = "人工智能数据挖掘深度学习框架模型神经网络医疗领域应用发展阶段";
+
+    // 随机生成文本：以若干基础段落为母本做随机替换，模拟抄袭与原创混合
+    private static List<String> randomCorpus(Random random, int size) {
+        List<String> bases = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            bases.add(randomText(random, CHARS, 200));
+        }
+        List<String> corpus = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            char[] text = bases.get(random.nextInt(bases.size())).toCharArray();
+            int edits = random.nextInt(text.length);
+            for (int e = 0; e < edits; e++) {
+                text[random.nextInt(text.length)] = CHARS.charAt(random.nextInt(CHARS.length()));
+            }
+            corpus.add(new String(text));
+        }
+        return corpus;
+    }
+
+    // 倒排累加的Top-K与逐篇打分一致
+    @Test
+    public void testSearchMatchesExhaustiveScoring() {
+        Random random = new Random(11);
+        InvertedGramIndex index = new InvertedGramIndex();
+        for (String text : randomCorpus(random, 200)) {
+            index.add("doc", text);
+        }
+        for (int round = 0; round < 20; round++) {
+            DocumentVector query = DocumentVector.of(randomCorpus(random, 1).get(0));
+            List<CorpusIndex.Match> expected = index.corpus().search(query, 10);
+            List<CorpusIndex.Match> actual = index.search(query, 10);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).score(), actual.get(i).score(), 1e-9);
+            }
+        }
+    }
+
+    // 剪枝后的阈值检索不漏掉任何达到阈值的文档
+    @Test
+    public void testThresholdPruningIsExact() {
+        Random random = new Random(5);
+        InvertedGramIndex index = new InvertedGramIndex();
+        for (String text : randomCorpus(random, 300)) {
+            index.add("doc", text);
+        }
+        for (double threshold : new double[]{0.3, 0.5, 0.8}) {
+            for (int round = 0; round < 10; round++) {
+                DocumentVector query = DocumentVector.of(randomCorpus(random, 1).get(0));
+                int expected = 0;
+                for (int docId = 0; docId < index.size(); docId++) {
+                    if (SimilarityCalculator.cosine(query, index.corpus().vector(docId)) >= threshold) {
+                        expected++;
+                    }
+                }
+                assertEquals(expected, index.searchAtLeast(query, threshold).size());
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package text;
+
+import java.util.Arrays;
+
+/**
+ * MinHash签名的分段LSH桶表
+ * <p>
+ * 签名分为b段、每段r位，任意一段完全相同的两篇文档落入同一个桶成为候选对。
+ * Jaccard相似度为J的一对文档成为候选的概率为 1 - (1 - J^r)^b，
+ * 阈值拐点约为 (1/b)^(1/r)
+ * <p>
+ * 每段一张原始类型桶表：桶键 → 桶内最近加入文档编号+1，同桶文档按编号串成链，
+ * 链接存放在按 文档编号×段数+段 下标的int数组中，不装箱
+ */
+public class LshIndex {
+    private final int bands;
+    private final int rows;
+    private final GramCountMap[] heads;
+    // 同一桶中上一篇文档的编号+1，0表示链尾
+    private int[] next;
+    private int size;
+
+    /**
+     * @param bands 段数b
+     * @param rows 每段位数r，b×r必须等于签名长度
+     */
+    public LshIndex(int bands, int rows) {
+        if (bands <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("段数和每段位数必须为正数");
+        }
+        this.bands = bands;
+        this.rows = rows;
+        this.heads = new GramCountMap[bands];
+        for (int i = 0; i < bands; i++) {
+            heads[i] = new GramCountMap();
+        }
+        this.next = new int[16 * bands];
+    }
+
+    /**
+     * 加入一篇文档的签名
+     * @return 文档编号（按加入顺序从0开始）
+     */
+    public int add(long[] signature) {
+        if (signature.length != bands * rows) {
+            throw new IllegalArgumentException("签名长度应为" + (bands * rows) + ": " + signature.length);
+        }
+        int docId = size++;
+        if ((long) size * bands > next.length) {
+            next = Arrays.copyOf(next, Math.max(next.length * 2, size * bands));
+        }
+        for (int band = 0; band < bands; band++) {
+            long key = bandKey(signature, band);
+            next[docId * bands + band] = heads[band].get(key);
+            heads[band].put(key, docId + 1);
+        }
+        return docId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 输出全部候选对（每对只回调一次，first &lt; second）
+     */
+    public void forEachCandidatePair(PairConsumer consumer) {
+        // 候选对编码为 first<<32 | second，second ≥ 1 保证编码不为0，复用计数表去重
+        GramCountMap emitted = new GramCountMap();
+        int[][] bucket = {new int[16]};
+        for (int band = 0; band < bands; band++) {
+            int b = band;
+            heads[band].forEach((key, head) -> {
+                // 链上编号从大到小，倒序放入后桶内编号升序
+                int count = 0;
+                for (int docId = head - 1; docId >= 0; docId = next[docId * bands + b] - 1) {
+                    if (count == bucket[0].length) {
+                        bucket[0] = Arrays.copyOf(bucket[0], count * 2);
+                    }
+                    bucket[0][count++] = docId;
+                }
+                int[] members = bucket[0];
+                for (int i = count - 1; i > 0; i--) {
+                    for (int j = i - 1; j >= 0; j--) {
+                        int first = members[i];
+                        int second = members[j];
+                        long pair = ((long) first << 32) | second;
+                        if (emitted.get(pair) == 0) {
+                            emitted.increment(pair);
+                            consumer.accept(first, second);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 某段所有位混合成一个桶键
+     */
+    private long bandKey(long[] signature, int band) {
+        long h = band;
+        for (int i = band * rows, end = i + rows; i < end; i++) {
+            h = MinHasher.mix(h * 31 + signature[i]);
+        }
+        // 桶表不接受0作为键
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * 候选对回调
+     */
+    @FunctionalInterface
+    public interface PairConsumer {
+        void accept(int first, int second);
+    }
+}
@@ -1,40 +1,552 @@
-package text;
-
-import java.io.IOException;
-
-public class Main {
-    public static void main(String[] args) {
-        // 检查命令行参数是否正确
-        if (args.length != 3) {
-            System.err.println("用法: java -jar main.jar [原文文件路径] [抄袭版论文路径] [答案文件路径]");
-            System.exit(1);
-        }
-        
-        String originalPath = args[0];
-        String plagiarizedPath = args[1];
-        String resultPath = args[2];
-        
-        try {
-            // 读取文件内容
-            String originalText = FileHandler.readFile(originalPath);
-            String plagiarizedText = FileHandler.readFile(plagiarizedPath);
-            
-            // 计算相似度
-            double similarity = SimilarityCalculator.calculateSimilarity(originalText, plagiarizedText);
-            
-            // 保留两位小数
-            similarity = Math.round(similarity * 100) / 100.0;
-            
-            // 写入结果
-            FileHandler.writeFile(resultPath, String.format("%.2f", similarity));
-            
-        } catch (IOException e) {
-            System.err.println("文件操作错误: " + e.getMessage());
-            System.exit(1);
-        } catch (Exception e) {
-            System.err.println("程序错误: " + e.getMessage());
-            System.exit(1);
-        }
-    }
-}
-
+package text;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Main {
+    private static final int DEFAULT_TOP_K = 10;
+    private static final double DEFAULT_THRESHOLD = 0.8;
+    private static final long DEFAULT_CACHE_BYTES = 1L << 30;
+    private static final int DEFAULT_PORT = 8080;
+    private static final int MAX_EXCERPT_CHARS = 60;
+    private static final long DEFAULT_SEGMENT_CACHE_BYTES = 256L << 20;
+
+    public static void main(String[] args) {
+        // --segmenter=策略、--stats[=文件] 对所有模式生效，先取出再按模式分发
+        int global = 0;
+        while (global < args.length) {
+            String option = args[global];
+            if (option.startsWith("--segmenter=")) {
+                try {
+                    TextProcessor.setSegmenter(parseSegmenter(option.substring("--segmenter=".length())));
+                } catch (IllegalArgumentException e) {
+                    System.err.println(e.getMessage());
+                    printUsage();
+                    System.exit(1);
+                } catch (IOException e) {
+                    System.err.println("词典读取错误: " + e.getMessage());
+                    System.exit(1);
+                }
+            } else if ("--stats".equals(option) || option.startsWith("--stats=")) {
+                enableStats("--stats".equals(option) ? null : option.substring("--stats=".length()));
+            } else {
+                break;
+            }
+            global++;
+        }
+        args = Arrays.copyOfRange(args, global, args.length);
+        if (args.length > 0 && "--batch".equals(args[0])) {
+            runBatch(args);
+            return;
+        }
+        if (args.length > 0 && "--scan".equals(args[0])) {
+            runScan(args);
+            return;
+        }
+        if (args.length > 0 && "--near-duplicates".equals(args[0])) {
+            runNearDuplicates(args);
+            return;
+        }
+        if (args.length > 0 && "--matrix".equals(args[0])) {
+            runMatrix(args);
+            return;
+        }
+        if (args.length > 0 && "--fingerprint".equals(args[0])) {
+            runFingerprint(args);
+            return;
+        }
+        if (args.length > 0 && "--common-passages".equals(args[0])) {
+            runCommonPassages(args);
+            return;
+        }
+        if (args.length > 0 && "--serve".equals(args[0])) {
+            runServer(args);
+            return;
+        }
+
+        if (args.length > 0 && "--build-idf".equals(args[0])) {
+            runBuildIdf(args);
+            return;
+        }
+        if (args.length > 0 && "--build-store".equals(args[0])) {
+            runBuildStore(args);
+            return;
+        }
+
+        // 选项：--parallel 整篇读入后多核分词；--cache=目录 复用磁盘上的词频向量缓存；--idf=IDF表 按TF-IDF加权
+        boolean parallel = false;
+        String cacheDir = null;
+        String idfPath = null;
+        int first = 0;
+        while (first < args.length && args[first].startsWith("--")) {
+            String option = args[first++];
+            if ("--parallel".equals(option)) {
+                parallel = true;
+            } else if (option.startsWith("--cache=")) {
+                cacheDir = option.substring("--cache=".length());
+            } else if (option.startsWith("--idf=")) {
+                idfPath = option.substring("--idf=".length());
+            } else {
+                printUsage();
+                System.exit(1);
+            }
+        }
+
+        // 检查命令行参数是否正确
+        if (args.length - first != 3) {
+            printUsage();
+            System.exit(1);
+        }
+        
+        String originalPath = args[first];
+        String plagiarizedPath = args[first + 1];
+        String resultPath = args[first + 2];
+        
+        try {
+            GramVectorCache cache = cacheDir == null ? null
+                    : new GramVectorCache(Paths.get(cacheDir), DEFAULT_CACHE_BYTES);
+
+            // 读取文件内容并分词计数（命中缓存时跳过分词）
+            DocumentVector originalVector = loadVector(originalPath, parallel, cache);
+            DocumentVector plagiarizedVector = loadVector(plagiarizedPath, parallel, cache);
+            
+            // 计算相似度
+            double similarity;
+            if (idfPath == null) {
+                similarity = SimilarityCalculator.calculateSimilarity(originalVector, plagiarizedVector);
+            } else {
+                IdfTable idf = IdfTable.open(Paths.get(idfPath));
+                if (!idf.segmenter().equals(TextProcessor.getSegmenter().name())) {
+                    System.err.println("IDF表的分词策略(" + idf.segmenter() + ")与当前策略不一致");
+                    System.exit(1);
+                }
+                similarity = SimilarityCalculator.calculateTfIdfSimilarity(
+                        originalVector.sparse(), plagiarizedVector.sparse(), idf);
+            }
+            
+            // 保留两位小数
+            similarity = Math.round(similarity * 100) / 100.0;
+            
+            // 写入结果
+            FileHandler.writeFile(resultPath, String.format("%.2f", similarity));
+            
+        } catch (IOException e) {
+            System.err.println("文件操作错误: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("程序错误: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static DocumentVector loadVector(String path, boolean parallel, GramVectorCache cache) throws IOException {
+        if (cache != null) {
+            return cache.load(path);
+        }
+        if (parallel) {
+            return ParallelSegmenter.vector(FileHandler.readFile(path));
+        }
+        // 流式读取文件内容并直接分词计数
+        return FileHandler.readVector(path);
+    }
+
+    /**
+     * 统计参考论文目录的文档频率，写出供 --idf 使用的IDF表
+     */
+    private static void runBuildIdf(String[] args) {
+        if (args.length != 3 && args.length != 4) {
+            printUsage();
+            System.exit(1);
+        }
+        try {
+            int minDocumentFrequency = args.length == 4 ? Integer.parseInt(args[3])
+                    : CorpusStatistics.DEFAULT_MIN_DOCUMENT_FREQUENCY;
+            CorpusStatistics statistics = CorpusStatistics.build(Paths.get(args[1]));
+            statistics.write(Paths.get(args[2]), minDocumentFrequency);
+            System.out.println("已统计 " + statistics.documentCount() + " 篇论文，" + statistics.size() + " 个gram");
+        } catch (NumberFormatException e) {
+            System.err.println("最小文档频率必须是整数: " + args[3]);
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("文件操作错误: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("程序错误: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 把参考论文目录追加到堆外向量库，供 --batch 直接映射使用
+     */
+    private static void runBuildStore(String[] args) {
+        if (args.length != 3) {
+            printUsage();
+            System.exit(1);
+        }
+        try (CorpusStore.Appender appender = CorpusStore.appender(Paths.get(args[2]))) {
+            int added = appender.appendDirectory(Paths.get(args[1]));
+            System.out.println("已追加 " + added + " 篇论文，向量库共 " + appender.size() + " 篇");
+        } catch (IOException e) {
+            System.err.println("文件操作错误: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("程序错误: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 批量模式：一篇待检论文对比整个参考论文库，输出最相似的K篇
+     * 参考库可以是论文目录，也可以是 --build-store 生成的向量库目录
+     * 选项 --threshold=t 改为输出相似度不低于t的全部论文（给出K时最多K篇），倒排索引按阈值剪枝候选
+     */
+    private static void runBatch(String[] args) {
+        double threshold = 0;
+        int first = 1;
+        while (first < args.length && args[first].startsWith("--")) {
+            String option = args[first++];
+            if (option.startsWith("--threshold=")) {
+                try {
+                    threshold = Double.parseDouble(option.substring("--threshold=".length()));
+                } catch (NumberFormatException e) {
+                    System.err.println("阈值必须是数字: " + option.substring("--threshold=".length()));
+                    System.exit(1);
+                }
+            } else {
+                printUsage();
+                System.exit(1);
+            }
+        }
+        if (args.length - first != 3 && args.length - first != 4) {
+            printUsage();
+            System.exit(1);
+        }
+
+        String corpusDir = args[first];
+        String queryPath = args[first + 1];
+        String resultPath = args[first + 2];
+        boolean hasTopK = args.length - first == 4;
+
+        try {
+            int topK = hasTopK ? Integer.parseInt(args[first + 3]) : DEFAULT_TOP_K;
+
+            String queryText = FileHandler.readFile(queryPath);
+            List<CorpusIndex.Match> matches;
+            if (CorpusStore.exists(Paths.get(corpusDir))) {
+                // 向量库只映射不读入，直接在映射内存上逐篇打分
+                CorpusStore store = CorpusStore.open(Paths.get(corpusDir));
+                if (!store.segmenter().equals(TextProcessor.getSegmenter().name())) {
+                    System.err.println("向量库的分词策略(" + store.segmenter() + ")与当前策略不一致");
+                    System.exit(1);
+                }
+                if (threshold > 0) {
+                    matches = new ArrayList<>();
+                    for (CorpusIndex.Match match : store.search(queryText, store.size())) {
+                        if (match.score() >= threshold) {
+                            matches.add(match);
+                        }
+                    }
+                } else {
+                    matches = store.search(queryText, topK);
+                }
+            } else {
+                // 参考库只构建一次倒排索引，待检论文只分词一次
+                InvertedGramIndex index = InvertedGramIndex.build(Paths.get(corpusDir));
+                matches = threshold > 0
+                        ? index.searchAtLeast(DocumentVector.of(queryText), threshold)
+                        : index.search(queryText, topK);
+            }
+            if (threshold > 0 && hasTopK && matches.size() > topK) {
+                matches = matches.subList(0, topK);
+            }
+
+            // 每行一条：参考论文文件名 + 制表符 + 相似度
+            StringBuilder result = new StringBuilder();
+            for (CorpusIndex.Match match : matches) {
+                result.append(match).append(System.lineSeparator());
+            }
+            FileHandler.writeFile(resultPath, result.toString());
+
+        } catch (NumberFormatException e) {
+            System.err.println("K必须是整数: " + args[first + 3]);
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("文件操作错误: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("程序错误: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 逐篇查重模式：待检论文目录（递归）中的每篇论文都与原文比较，读取、分词打分、输出三级流水线并行，
+     * 结果按完成顺序边算边写，内存占用与目录大小无关
+     */
+    private static void runScan(String[] args) {
+        if (args.length != 4) {
+            printUsage();
+            System.exit(1);
+        }
+
+        String originalPath = args[1];
+        String directory = args[2];
+        String resultPath = args[3];
+
+        try {
+            Path result = Paths.get(resultPath).toAbsolutePath();
+            Files.createDirectories(result.getParent());
+            try (Writer writer = Files.newBufferedWriter(result, StandardCharsets.UTF_8)) {
+                PipelinedScanner scanner = new PipelinedScanner(FileHandler.readVector(originalPath));
+                // 每行一条：相对路径 + 制表符 + 相似度
+                scanner.scan(Paths.get(directory), (name, similarity) -> writer.write(
+                        String.format("%s\t%.2f", name, similarity) + System.lineSeparator()));
+            }
+        } catch (IOException e) {
+            System.err.println("文件操作错误: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("程序错误: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 近似查重模式：目录内全部论文两两比较，LSH筛选候选后精确打分
+     */
+    private static void runNearDuplicates(String[] args) {
+        if (args.length != 3 && args.length != 4) {
+            printUsage();
+            System.exit(1);
+        }
+
+        String directory = args[1];
+        String resultPath = args[2];
+
+        try {
+            double threshold = args.length == 4 ? Double.parseDouble(args[3]) : DEFAULT_THRESHOLD;
+
+            NearDuplicateDetector detector = NearDuplicateDetector.build(Paths.get(directory));
+            List<NearDuplicateDetector.Pair> pairs = detector.findPairs(threshold);
+            if (!detector.emptyDocuments().isEmpty()) {
+                System.err.println(detector.emptyDocuments().size() + "篇空论文未参与比较: "
+                        + String.join(", ", detector.emptyDocuments()));
+            }
+
+            // 每行一对：文件名1 + 文件名2 + 相似度
+            StringBuilder result = new StringBuilder();
+            for (NearDuplicateDetector.Pair pair : pairs) {
+                result.append(pair).append(System.lineSeparator());
+            }
+            FileHandler.writeFile(resultPath, result.toString());
+
+        } catch (NumberFormatException e) {
+            System.err.println("阈值必须是数字: " + args[3]);
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("文件操作错误: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("程序错误: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 矩阵模式：目录内全部论文两两打分，输出完整相似度矩阵
+     * 答案文件以 .bin 结尾时输出紧凑二进制格式，否则输出CSV
+     */
+    private static void runMatrix(String[] args) {
+        if (args.length != 3) {
+            printUsage();
+            System.exit(1);
+        }
+
+        String directory = args[1];
+        String resultPath = args[2];
+
+        try {
+            SimilarityMatrix matrix = SimilarityMatrix.build(Paths.get(directory));
+            Path result = Paths.get(resultPath).toAbsolutePath();
+            Files.createDirectories(result.getParent());
+            // 逐行块边算边写，不在内存中保留整个矩阵
+            if (resultPath.endsWith(".bin")) {
+                try (OutputStream out = Files.newOutputStream(result)) {
+                    matrix.writeBinary(out);
+                }
+            } else {
+                try (Writer out = Files.newBufferedWriter(result, StandardCharsets.UTF_8)) {
+                    matrix.writeCsv(out);
+                }
+            }
+
+        } catch (IOException e) {
+            System.err.println("文件操作错误: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("程序错误: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 证据模式：用winnowing指纹定位两篇论文的共同片段，输出在两个文件中的字符位置和摘录
+     */
+    private static void runFingerprint(String[] args) {
+        if (args.length != 4) {
+            printUsage();
+            System.exit(1);
+        }
+
+        try {
+            String original = FileHandler.readFile(args[1]);
+            String plagiarized = FileHandler.readFile(args[2]);
+            List<CopiedPassage> passages = new Winnowing().match(original, plagiarized);
+            FileHandler.writeFile(args[3], formatPassages(passages, plagiarized));
+
+        } catch (IOException e) {
+            System.err.println("文件操作错误: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("程序错误: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 逐字证据模式：用后缀自动机找出两篇论文全部不短于指定长度的逐字相同片段
+     */
+    private static void runCommonPassages(String[] args) {
+        if (args.length != 4 && args.length != 5) {
+            printUsage();
+            System.exit(1);
+        }
+
+        try {
+            int minLength = args.length == 5 ? Integer.parseInt(args[4]) : SuffixAutomaton.DEFAULT_MIN_LENGTH;
+            String original = FileHandler.readFile(args[1]);
+            String plagiarized = FileHandler.readFile(args[2]);
+            List<CopiedPassage> passages = SuffixAutomaton.commonPassages(original, plagiarized, minLength);
+            FileHandler.writeFile(args[3], formatPassages(passages, plagiarized));
+
+        } catch (NumberFormatException e) {
+            System.err.println("最短长度必须是整数: " + args[4]);
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("文件操作错误: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("程序错误: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // 每行一段：原文位置 + 抄袭版位置 + 匹配字数 + 抄袭版中的摘录
+    private static String formatPassages(List<CopiedPassage> passages, String plagiarized) {
+        StringBuilder result = new StringBuilder();
+        for (CopiedPassage passage : passages) {
+            String excerpt = plagiarized.substring(passage.plagiarizedStart(), passage.plagiarizedEnd())
+                    .replaceAll("\\s+", " ");
+            if (excerpt.length() > MAX_EXCERPT_CHARS) {
+                excerpt = excerpt.substring(0, MAX_EXCERPT_CHARS) + "…";
+            }
+            result.append(passage).append('\t').append(excerpt).append(System.lineSeparator());
+        }
+        return result.toString();
+    }
+
+    /**
+     * 服务模式：常驻进程提供HTTP查重接口，热门原文的分词结果在内存中缓存
+     */
+    private static void runServer(String[] args) {
+        if (args.length > 2) {
+            printUsage();
+            System.exit(1);
+        }
+
+        try {
+            int port = args.length == 2 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+            SimilarityCalculator.setSegmentCache(new SegmentCache(DEFAULT_SEGMENT_CACHE_BYTES));
+            // 常驻服务始终注册MBean，可在JConsole中随时开启统计
+            PipelineMetrics.registerMBeans();
+            SimilarityServer server = new SimilarityServer(port);
+            server.start();
+            System.out.println("查重服务已启动: http://localhost:" + server.port() + "/similarity");
+
+        } catch (NumberFormatException e) {
+            System.err.println("端口必须是整数: " + args[1]);
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("服务启动失败: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 开启流水线统计并注册MBean，进程退出时（包括出错退出）输出JSON：未指定文件时输出到标准错误
+     */
+    private static void enableStats(String path) {
+        PipelineMetrics.setEnabled(true);
+        PipelineMetrics.registerMBeans();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            String json = PipelineMetrics.toJson();
+            if (path == null) {
+                System.err.println(json);
+                return;
+            }
+            try {
+                FileHandler.writeFile(path, json);
+            } catch (IOException e) {
+                System.err.println("统计写入失败: " + e.getMessage());
+            }
+        }));
+    }
+
+    /**
+     * 解析分词策略：char（默认的字符2-gram+3-gram）、word 或 wordN（N个单词的shingle）、dict:词典文件路径
+     */
+    static Segmenter parseSegmenter(String spec) throws IOException {
+        if ("char".equals(spec)) {
+            return CharNGramSegmenter.INSTANCE;
+        }
+        if ("word".equals(spec)) {
+            return new WordShingleSegmenter();
+        }
+        if (spec.startsWith("word")) {
+            try {
+                return new WordShingleSegmenter(Integer.parseInt(spec.substring("word".length())));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("shingle长度必须是整数: " + spec);
+            }
+        }
+        if (spec.startsWith("dict:") && spec.length() > "dict:".length()) {
+            return DictionarySegmenter.load(Paths.get(spec.substring("dict:".length())));
+        }
+        throw new IllegalArgumentException("未知的分词策略: " + spec);
+    }
+
+    private static void printUsage() {
+        System.err.println("用法: java -jar main.jar [--parallel] [--cache=缓存目录] [--idf=IDF表路径] [原文文件路径] [抄袭版论文路径] [答案文件路径]");
+        System.err.println("批量: java -jar main.jar --batch [--threshold=阈值] [参考论文目录或向量库目录] [待检论文路径] [答案文件路径] [K]");
+        System.err.println("      给出 --threshold 时输出相似度不低于阈值的全部参考论文（给出K时最多K篇）");
+        System.err.println("逐篇查重: java -jar main.jar --scan [原文文件路径] [待检论文目录] [答案文件路径]");
+        System.err.println("近似查重: java -jar main.jar --near-duplicates [论文目录] [答案文件路径] [阈值]");
+        System.err.println("相似度矩阵: java -jar main.jar --matrix [论文目录] [答案文件路径(.csv或.bin)]");
+        System.err.println("抄袭片段: java -jar main.jar --fingerprint [原文文件路径] [抄袭版论文路径] [答案文件路径]");
+        System.err.println("逐字片段: java -jar main.jar --common-passages [原文文件路径] [抄袭版论文路径] [答案文件路径] [最短长度]");
+        System.err.println("查重服务: java -jar main.jar --serve [端口]");
+        System.err.println("IDF表: java -jar main.jar --build-idf [参考论文目录] [IDF表路径] [最小文档频率]");
+        System.err.println("向量库: java -jar main.jar --build-store [参考论文目录] [向量库目录]（追加写入）");
+        System.err.println("分词策略: 以上各命令前均可加 --segmenter=char|word|word<N>|dict:<词典文件路径>，默认char");
+        System.err.println("耗时统计: 以上各命令前均可加 --stats 或 --stats=<JSON文件路径>，退出时输出各阶段统计");
+    }
+}
@@ -0,0 +1,109 @@
+package text;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static text.TextTestSupport.randomText;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class MinHashTest {
+    private static final String CHARS = "人工智能数据挖掘深度学习框架模型神经网络医疗领域应用发展阶段统计商业决策";
+
+    // 模拟SimilarityCalculatorTest中的抄袭样本：以段落为单位，每10段改写1段
+    private static String plagiarize(Random random, String[] paragraphs) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < paragraphs.length; i++) {
+            sb.append(i % 10 == 0 ? randomText(random, CHARS, paragraphs[i].length()) : paragraphs[i]);
+            if ((i + 1) % 10 == 0) sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    // Jaccard估计值落在文档中给出的误差界内
+    @Test
+    public void testJaccardEstimateWithinBound() {
+        Random random = new Random(1);
+        MinHasher hasher = new MinHasher(128, 99);
+        for (int round = 0; round < 20; round++) {
+            GramCountMap first = TextProcessor.buildGramFrequency(randomText(random, CHARS, 400));
+            GramCountMap second = TextProcessor.buildGramFrequency(randomText(random, CHARS, 400));
+            second.addAll(first);
+            int[] shared = new int[1];
+            first.forEach((gram, count) -> {
+                if (second.get(gram) > 0) shared[0]++;
+            });
+            double exact = (double) shared[0] / (first.size() + second.size() - shared[0]);
+            double estimate = MinHasher.estimateJaccard(hasher.signature(first), hasher.signature(second));
+            assertEquals(exact, estimate, 0.15);
+        }
+    }
+
+    // 合成抄袭对的召回率不低于95%
+    @Test
+    public void testRecallOnSyntheticPlagiarismPairs() {
+        Random random = new Random(2);
+        NearDuplicateDetector detector = new NearDuplicateDetector();
+        int pairCount = 40;
+        for (int p = 0; p < pairCount; p++) {
+            String[] paragraphs = new String[50];
+            StringBuilder original = new StringBuilder();
+            for (int i = 0; i < paragraphs.length; i++) {
+                paragraphs[i] = randomText(random, CHARS, 40);
+                original.append(paragraphs[i]);
+                if ((i + 1) % 10 == 0) original.append("\n");
+            }
+            detector.add("orig" + p, original.toString());
+            detector.add("copy" + p, plagiarize(random, paragraphs));
+        }
+
+        List<NearDuplicateDetector.Pair> pairs = detector.findPairs(0.5);
+        int found = 0;
+        for (NearDuplicateDetector.Pair pair : pairs) {
+            if (pair.first().startsWith("orig") && pair.second().equals("copy" + pair.first().substring(4))) {
+                found++;
+            }
+        }
+        double recall = (double) found / pairCount;
+        assertTrue("召回率过低: " + recall, recall >= 0.95);
+    }
+
+    // 桶表按段输出候选对，每对只输出一次且 first < second
+    @Test
+    public void testCandidatePairsFromSharedBands() {
+        LshIndex lsh = new LshIndex(2, 2);
+        lsh.add(new long[]{1, 2, 3, 4});
+        lsh.add(new long[]{1, 2, 5, 6});
+        lsh.add(new long[]{7, 8, 3, 4});
+        lsh.add(new long[]{1, 2, 3, 4});
+        lsh.add(new long[]{9, 9, 9, 9});
+        List<String> pairs = new ArrayList<>();
+        lsh.forEachCandidatePair((first, second) -> {
+            assertTrue(first < second);
+            pairs.add(first + "-" + second);
+        });
+        Collections.sort(pairs);
+        assertEquals(Arrays.asList("0-1", "0-2", "0-3", "1-3", "2-3"), pairs);
+    }
+
+    // 空文档不进入LSH，大量空白提交不会产生二次方个候选对
+    @Test(timeout = 10000)
+    public void testEmptyDocumentsStayOutOfLsh() {
+        NearDuplicateDetector detector = new NearDuplicateDetector();
+        detector.add("a", "数据挖掘是从大量数据中提取价值信息的过程");
+        for (int i = 0; i < 20000; i++) {
+            detector.add("blank" + i, i % 2 == 0 ? "" : "  ，。 ");
+        }
+        detector.add("b", "数据挖掘是从大量数据中提取价值信息的过程");
+        assertEquals(20002, detector.size());
+        assertEquals(20000, detector.emptyDocuments().size());
+        assertEquals("blank0", detector.emptyDocuments().get(0));
+        List<NearDuplicateDetector.Pair> pairs = detector.findPairs(0.5);
+        assertEquals(1, pairs.size());
+        assertEquals("a", pairs.get(0).first());
+        assertEquals("b", pairs.get(0).second());
+    }
+}
@@ -0,0 +1,132 @@
+package text;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于MinHash/LSH的全量两两近似查重
+ * 先由LSH筛出候选对，再只对候选对用原有的加权余弦精确打分，
+ * 避免对全部文档做二次方次比较。
+ * 空文档的签名全部相同，放入LSH会在每一段都落入同一个桶，因此不加入LSH，单独列出
+ */
+public class NearDuplicateDetector {
+    public static final int DEFAULT_BANDS = 32;
+    public static final int DEFAULT_ROWS = 4;
+    private static final long DEFAULT_SEED = 0x5eed_1234_abcdL;
+
+    private final MinHasher hasher;
+    private final LshIndex lsh;
+    private final List<String> names = new ArrayList<>();
+    private final List<DocumentVector> vectors = new ArrayList<>();
+    private final List<String> emptyDocuments = new ArrayList<>();
+
+    public NearDuplicateDetector() {
+        this(DEFAULT_BANDS, DEFAULT_ROWS);
+    }
+
+    /**
+     * @param bands LSH段数
+     * @param rows 每段位数，排列个数为 bands × rows
+     */
+    public NearDuplicateDetector(int bands, int rows) {
+        this.hasher = new MinHasher(bands * rows, DEFAULT_SEED);
+        this.lsh = new LshIndex(bands, rows);
+    }
+
+    /**
+     * 读取目录下的全部文件（不递归）构建检测器
+     */
+    public static NearDuplicateDetector build(Path directory) throws IOException {
+        CorpusIndex corpus = CorpusIndex.build(directory);
+        NearDuplicateDetector detector = new NearDuplicateDetector();
+        for (int docId = 0; docId < corpus.size(); docId++) {
+            detector.add(corpus.name(docId), corpus.vector(docId));
+        }
+        return detector;
+    }
+
+    /**
+     * 加入一篇文档
+     */
+    public void add(String name, String text) {
+        add(name, DocumentVector.of(text));
+    }
+
+    public void add(String name, DocumentVector vector) {
+        if (vector.isEmpty()) {
+            emptyDocuments.add(name);
+            return;
+        }
+        // LSH文档编号与下标一致
+        names.add(name);
+        vectors.add(vector);
+        lsh.add(hasher.signature(vector.counts()));
+    }
+
+    public int size() {
+        return names.size() + emptyDocuments.size();
+    }
+
+    /**
+     * 空文档（没有任何gram）的名称，按加入顺序；空文档不参与 {@link #findPairs} 的比较
+     */
+    public List<String> emptyDocuments() {
+        return Collections.unmodifiableList(emptyDocuments);
+    }
+
+    /**
+     * 找出加权余弦相似度不低于threshold的文档对（按得分降序）
+     * 只对LSH候选对打分，召回率取决于段数和每段位数
+     */
+    public List<Pair> findPairs(double threshold) {
+        List<Pair> pairs = new ArrayList<>();
+        lsh.forEachCandidatePair((first, second) -> {
+            double score = SimilarityCalculator.cosine(vectors.get(first).sparse(), vectors.get(second).sparse());
+            if (score >= threshold) {
+                pairs.add(new Pair(names.get(first), names.get(second), score));
+            }
+        });
+        pairs.sort(Collections.reverseOrder());
+        return pairs;
+    }
+
+    /**
+     * 一对相似文档
+     */
+    public static final class Pair implements Comparable<Pair> {
+        private final String first;
+        private final String second;
+        private final double score;
+
+        public Pair(String first, String second, double score) {
+            this.first = first;
+            this.second = second;
+            this.score = score;
+        }
+
+        public String first() {
+            return first;
+        }
+
+        public String second() {
+            return second;
+        }
+
+        public double score() {
+            return score;
+        }
+
+        @Override
+        public int compareTo(Pair other) {
+            return Double.compare(score, other.score);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s\t%s\t%.2f", first, second, Math.round(score * 100) / 100.0);
+        }
+    }
+}
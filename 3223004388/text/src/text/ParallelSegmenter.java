@@ -0,0 +1,99 @@
+package text;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 超大单篇文档的并行分词计数
+ * <p>
+ * 文本按字符切块，每块额外读取边界后的两个字符补齐起点在块内的2-gram/3-gram，
+ * 下一块从边界处重新开始计数，因此接缝处的gram既不丢失也不重复。
+ * 原始字符与规范化字符一一对应（不保留的字符都视为分隔符，空格合并不影响分词），
+ * 所以规范化也在各块内并行完成。每个叶子任务使用自己的计数表，最后逐级合并；
+ * 计数结果与顺序分词完全相同，相似度也逐位一致
+ */
+public class ParallelSegmenter {
+    // 每块至少包含的字符数，过小的块合并开销大于并行收益
+    static final int MIN_CHUNK_CHARS = 1 << 16;
+
+    private ParallelSegmenter() {
+    }
+
+    /**
+     * 用公共ForkJoinPool并行统计词频
+     */
+    public static DocumentVector vector(String text) {
+        return vector(text, ForkJoinPool.commonPool());
+    }
+
+    public static DocumentVector vector(String text, ForkJoinPool pool) {
+        return new DocumentVector(buildGramFrequency(text, pool));
+    }
+
+    /**
+     * 并行统计词频，结果与 {@link TextProcessor#buildGramFrequency(String)} 相同
+     */
+    public static GramCountMap buildGramFrequency(String text, ForkJoinPool pool) {
+        if (text == null || text.isEmpty()) {
+            return new GramCountMap();
+        }
+        if (!TextProcessor.usesCharNGrams()) {
+            // 分块重叠拼接只适用于字符n-gram，其他策略退回单线程分词
+            return TextProcessor.buildGramFrequency(text);
+        }
+        long start = PipelineMetrics.start(PipelineMetrics.Stage.BUILD_FREQUENCY);
+        int chunkChars = Math.max(MIN_CHUNK_CHARS, text.length() / (pool.getParallelism() * 4));
+        GramCountMap frequency = buildGramFrequency(text, pool, chunkChars);
+        PipelineMetrics.stop(PipelineMetrics.Stage.BUILD_FREQUENCY, start, frequency.size());
+        return frequency;
+    }
+
+    static GramCountMap buildGramFrequency(String text, ForkJoinPool pool, int chunkChars) {
+        StopWordFilter filter = TextProcessor.getStopWordFilter();
+        return pool.invoke(new CountTask(text, 0, text.length(), chunkChars, filter));
+    }
+
+    /**
+     * 对 [start, end) 起点范围内的gram计数，超过块大小时二分后并行
+     */
+    private static final class CountTask extends RecursiveTask<GramCountMap> {
+        private static final long serialVersionUID = 1L;
+
+        private final String text;
+        private final int start;
+        private final int end;
+        private final int chunkChars;
+        private final StopWordFilter filter;
+
+        CountTask(String text, int start, int end, int chunkChars, StopWordFilter filter) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            this.chunkChars = chunkChars;
+            this.filter = filter;
+        }
+
+        @Override
+        protected GramCountMap compute() {
+            if (end - start <= chunkChars) {
+                GramCountMap counts = new GramCountMap(Math.min(end - start, 1 << 20));
+                StreamingSegmenter segmenter = new StreamingSegmenter(counts, filter);
+                segmenter.feed(text, start, end);
+                segmenter.feedOverlap(text, end, text.length());
+                return counts;
+            }
+            int middle = (start + end) >>> 1;
+            CountTask left = new CountTask(text, start, middle, chunkChars, filter);
+            left.fork();
+            GramCountMap right = new CountTask(text, middle, end, chunkChars, filter).compute();
+            GramCountMap merged = left.join();
+            // 把较小的表合并进较大的表
+            if (merged.size() < right.size()) {
+                right.addAll(merged);
+                return right;
+            }
+            merged.addAll(right);
+            return merged;
+        }
+    }
+}
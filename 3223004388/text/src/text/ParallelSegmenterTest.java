@@ -0,0 +1,43 @@
+package text;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static text.TextTestSupport.randomText;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelSegmenterTest {
+    private static final String CHARS = "的是人工智能数据挖掘AI ai1956'，。\n ";
+
+    // 极小的块使接缝遍布全文，计数仍与顺序分词完全一致
+    @Test
+    public void testCountsMatchSequentialAcrossSeams() {
+        Random random = new Random(9);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int chunk : new int[]{1, 2, 3, 7, 100}) {
+                String text = randomText(random, CHARS, 5000);
+                GramCountMap expected = TextProcessor.buildGramFrequency(text);
+                GramCountMap actual = ParallelSegmenter.buildGramFrequency(text, pool, chunk);
+                assertEquals(expected.size(), actual.size());
+                expected.forEach((gram, count) -> assertEquals(count, actual.get(gram)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // 并行相似度与顺序相似度逐位一致
+    @Test
+    public void testSimilarityBitIdentical() {
+        Random random = new Random(10);
+        String text1 = randomText(random, CHARS, 300000);
+        String text2 = text1.substring(1000) + randomText(random, CHARS, 20000);
+        double sequential = SimilarityCalculator.calculateSimilarity(text1, text2);
+        double parallel = SimilarityCalculator.calculateSimilarityParallel(text1, text2);
+        assertEquals(Double.doubleToLongBits(sequential), Double.doubleToLongBits(parallel));
+        assertEquals(Double.doubleToLongBits(SimilarityCalculator.cosine(DocumentVector.of(text1), DocumentVector.of(text2))),
+                Double.doubleToLongBits(SimilarityCalculator.cosine(ParallelSegmenter.vector(text1), ParallelSegmenter.vector(text2))));
+    }
+}
@@ -0,0 +1,405 @@
+package text;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * 查重流水线各阶段的耗时与吞吐统计：读文件、预处理、分词、词频统计、余弦计算
+ * <p>
+ * 每个阶段记录调用次数、总耗时、按2的幂分桶的耗时直方图、最大耗时、处理量（字节数或gram数）
+ * 和线程分配字节数（JVM支持时）。计数全部用 {@link LongAdder}，多线程记录不加锁。
+ * 默认关闭，关闭时 {@link #start(Stage)} 只读一次volatile标志并返回0，不取时钟也不分配对象。
+ * 阶段可以嵌套（如词频统计包含分词），各阶段的耗时分别计算；流式读取时读文件、预处理和分词交替进行，
+ * 用 {@link Span} 分别累计，读文件的耗时不含预处理和分词
+ * <p>
+ * 通过 {@link #registerMBeans()} 注册到平台MBeanServer后可在JConsole中查看和开关，
+ * 也可用 {@link #toJson()} 导出
+ */
+public final class PipelineMetrics {
+    private static final int BUCKETS = 64;
+    private static final String DOMAIN = "text";
+
+    private static volatile boolean enabled;
+    private static final StageStatistics[] STAGES = new StageStatistics[Stage.values().length];
+    // 各线程在每个阶段开始时的已分配字节数
+    private static final ThreadLocal<long[]> ALLOCATION_START =
+            ThreadLocal.withInitial(() -> new long[Stage.values().length]);
+    private static final com.sun.management.ThreadMXBean ALLOCATION = allocationBean();
+
+    static {
+        for (Stage stage : Stage.values()) {
+            STAGES[stage.ordinal()] = new StageStatistics(stage);
+        }
+    }
+
+    private PipelineMetrics() {
+    }
+
+    /**
+     * 流水线阶段及其处理量的单位
+     */
+    public enum Stage {
+        READ("bytes"),
+        PREPROCESS("chars"),
+        SEGMENT("grams"),
+        BUILD_FREQUENCY("grams"),
+        COSINE("grams");
+
+        private final String unit;
+
+        Stage(String unit) {
+            this.unit = unit;
+        }
+
+        public String unit() {
+            return unit;
+        }
+
+        String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 阶段开始，返回的时间戳交给 {@link #stop(Stage, long, long)}；统计关闭时返回0
+     */
+    public static long start(Stage stage) {
+        if (!enabled) {
+            return 0;
+        }
+        if (ALLOCATION != null) {
+            ALLOCATION_START.get()[stage.ordinal()] = ALLOCATION.getCurrentThreadAllocatedBytes();
+        }
+        // nanoTime可能为0或负数，统一加上最低位保证非0
+        return System.nanoTime() | 1;
+    }
+
+    /**
+     * 阶段结束
+     * @param start {@link #start(Stage)} 的返回值，为0时什么都不做
+     * @param units 本次处理量，单位见 {@link Stage#unit()}
+     */
+    public static void stop(Stage stage, long start, long units) {
+        if (start == 0) {
+            return;
+        }
+        long nanos = Math.max(0, System.nanoTime() - start);
+        long allocated = 0;
+        if (ALLOCATION != null) {
+            allocated = Math.max(0, ALLOCATION.getCurrentThreadAllocatedBytes()
+                    - ALLOCATION_START.get()[stage.ordinal()]);
+        }
+        STAGES[stage.ordinal()].record(nanos, units, allocated);
+    }
+
+    /**
+     * 开始累计一个分段执行的阶段，统计关闭时返回的对象什么都不记录
+     */
+    static Span span(Stage stage) {
+        return new Span(stage, enabled);
+    }
+
+    public static StageMXBean statistics(Stage stage) {
+        return STAGES[stage.ordinal()];
+    }
+
+    /**
+     * 清空全部统计
+     */
+    public static void reset() {
+        for (StageStatistics statistics : STAGES) {
+            statistics.reset();
+        }
+    }
+
+    /**
+     * 全部阶段统计的JSON
+     */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"enabled\":").append(enabled).append(",\"stages\":{");
+        for (Stage stage : Stage.values()) {
+            StageStatistics s = STAGES[stage.ordinal()];
+            if (stage.ordinal() > 0) {
+                json.append(',');
+            }
+            json.append('"').append(stage.key()).append("\":{")
+                    .append("\"count\":").append(s.getCount())
+                    .append(",\"totalNanos\":").append(s.getTotalNanos())
+                    .append(",\"meanNanos\":").append(String.format(Locale.ROOT, "%.1f", s.getMeanNanos()))
+                    .append(",\"p50Nanos\":").append(s.getP50Nanos())
+                    .append(",\"p99Nanos\":").append(s.getP99Nanos())
+                    .append(",\"maxNanos\":").append(s.getMaxNanos())
+                    .append(",\"").append(stage.unit()).append("\":").append(s.getUnits())
+                    .append(",\"allocatedBytes\":").append(s.getAllocatedBytes())
+                    .append('}');
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * 注册到平台MBeanServer：text:type=PipelineMetrics 以及每个阶段一个 text:type=PipelineStage,name=阶段名
+     * 重复调用时忽略已注册的MBean
+     */
+    public static void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            register(server, new ObjectName(DOMAIN + ":type=PipelineMetrics"), new Control());
+            for (Stage stage : Stage.values()) {
+                register(server, new ObjectName(DOMAIN + ":type=PipelineStage,name=" + stage.key()),
+                        STAGES[stage.ordinal()]);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("注册MBean失败", e);
+        }
+    }
+
+    private static void register(MBeanServer server, ObjectName name, Object bean) throws JMException {
+        if (!server.isRegistered(name)) {
+            server.registerMBean(bean, name);
+        }
+    }
+
+    // 支持按线程统计分配字节数的JVM上返回对应的MXBean，否则返回null
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threads;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 流式处理中与其他阶段交替执行的阶段：多次 resume/pause 的耗时、处理量和分配字节累加后，
+     * 由 {@link #record()} 记为一次调用，因此交替执行的阶段互不包含
+     */
+    static final class Span {
+        private final Stage stage;
+        private final boolean active;
+        private long started;
+        private long allocationStarted;
+        private long nanos;
+        private long units;
+        private long allocated;
+
+        private Span(Stage stage, boolean active) {
+            this.stage = stage;
+            this.active = active;
+        }
+
+        void resume() {
+            if (!active) {
+                return;
+            }
+            if (ALLOCATION != null) {
+                allocationStarted = ALLOCATION.getCurrentThreadAllocatedBytes();
+            }
+            started = System.nanoTime() | 1;
+        }
+
+        /**
+         * @param processed 本段处理量，单位见 {@link Stage#unit()}
+         */
+        void pause(long processed) {
+            if (started == 0) {
+                return;
+            }
+            nanos += Math.max(0, System.nanoTime() - started);
+            if (ALLOCATION != null) {
+                allocated += Math.max(0, ALLOCATION.getCurrentThreadAllocatedBytes() - allocationStarted);
+            }
+            units += processed;
+            started = 0;
+        }
+
+        void addUnits(long processed) {
+            units += processed;
+        }
+
+        void record() {
+            if (active) {
+                STAGES[stage.ordinal()].record(nanos, units, allocated);
+            }
+        }
+    }
+
+    /**
+     * 全局开关与导出
+     */
+    public interface ControlMXBean {
+        boolean isEnabled();
+
+        void setEnabled(boolean enabled);
+
+        void reset();
+
+        String getJson();
+    }
+
+    /**
+     * 单个阶段的统计（耗时分位数为所在直方图桶的上界，误差在2倍以内）
+     */
+    public interface StageMXBean {
+        String getUnit();
+
+        long getCount();
+
+        long getTotalNanos();
+
+        double getMeanNanos();
+
+        long getP50Nanos();
+
+        long getP99Nanos();
+
+        long getMaxNanos();
+
+        long getUnits();
+
+        long getAllocatedBytes();
+    }
+
+    private static final class Control implements ControlMXBean {
+        @Override
+        public boolean isEnabled() {
+            return PipelineMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean on) {
+            PipelineMetrics.setEnabled(on);
+        }
+
+        @Override
+        public void reset() {
+            PipelineMetrics.reset();
+        }
+
+        @Override
+        public String getJson() {
+            return PipelineMetrics.toJson();
+        }
+    }
+
+    private static final class StageStatistics implements StageMXBean {
+        private final Stage stage;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder units = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        // 第i个桶统计耗时在 [2^(i-1), 2^i) 纳秒内的次数
+        private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        StageStatistics(Stage stage) {
+            this.stage = stage;
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos, long processed, long allocated) {
+            count.increment();
+            totalNanos.add(nanos);
+            units.add(processed);
+            allocatedBytes.add(allocated);
+            maxNanos.accumulate(nanos);
+            histogram[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos))].increment();
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            units.reset();
+            allocatedBytes.reset();
+            maxNanos.reset();
+            for (LongAdder bucket : histogram) {
+                bucket.reset();
+            }
+        }
+
+        private long percentile(double quantile) {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = histogram[i].sum();
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return Math.min(i == 0 ? 0 : (1L << i) - 1, getMaxNanos());
+                }
+            }
+            return getMaxNanos();
+        }
+
+        @Override
+        public String getUnit() {
+            return stage.unit();
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        @Override
+        public double getMeanNanos() {
+            long n = getCount();
+            return n == 0 ? 0 : (double) getTotalNanos() / n;
+        }
+
+        @Override
+        public long getP50Nanos() {
+            return percentile(0.50);
+        }
+
+        @Override
+        public long getP99Nanos() {
+            return percentile(0.99);
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        @Override
+        public long getUnits() {
+            return units.sum();
+        }
+
+        @Override
+        public long getAllocatedBytes() {
+            return allocatedBytes.sum();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package text;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import text.PipelineMetrics.Stage;
+
+public class PipelineMetricsTest {
+    private static final String TEXT = "今天是星期天，天气晴，今天晚上我要去看电影。";
+
+    @Before
+    public void setUp() {
+        PipelineMetrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        PipelineMetrics.setEnabled(false);
+        PipelineMetrics.reset();
+    }
+
+    // 关闭时不记录任何数据
+    @Test
+    public void testDisabledRecordsNothing() {
+        PipelineMetrics.setEnabled(false);
+        assertEquals(0, PipelineMetrics.start(Stage.SEGMENT));
+        SimilarityCalculator.calculateSimilarity(TEXT, TEXT);
+        for (Stage stage : Stage.values()) {
+            assertEquals(0, PipelineMetrics.statistics(stage).getCount());
+        }
+    }
+
+    // 开启后一次完整比对覆盖读文件、分词、词频统计和余弦计算，处理量与实际一致
+    @Test
+    public void testRecordsEachStage() throws IOException {
+        double unmeasured = SimilarityCalculator.calculateSimilarity(TEXT, TEXT);
+        Path file = Files.createTempFile("metrics", ".txt");
+        try {
+            Files.write(file, TEXT.getBytes(StandardCharsets.UTF_8));
+            PipelineMetrics.setEnabled(true);
+            String content = FileHandler.readFile(file.toString());
+            TextProcessor.preprocess(content);
+            double similarity = SimilarityCalculator.calculateSimilarity(content, TEXT);
+            // 统计不影响结果
+            assertEquals(unmeasured, similarity, 0.0);
+        } finally {
+            Files.delete(file);
+        }
+        GramCountMap expected = TextProcessor.buildGramFrequency(TEXT);
+        long grams = sum(expected);
+
+        assertEquals(1, PipelineMetrics.statistics(Stage.READ).getCount());
+        assertEquals(TEXT.getBytes(StandardCharsets.UTF_8).length, PipelineMetrics.statistics(Stage.READ).getUnits());
+        // 显式预处理一次；比对时两篇各分词一次，上面验证用的统计又调用了一次，每次分词都先规范化
+        assertEquals(4, PipelineMetrics.statistics(Stage.PREPROCESS).getCount());
+        assertEquals(4 * TEXT.length(), PipelineMetrics.statistics(Stage.PREPROCESS).getUnits());
+        assertEquals(3, PipelineMetrics.statistics(Stage.SEGMENT).getCount());
+        assertEquals(3 * grams, PipelineMetrics.statistics(Stage.SEGMENT).getUnits());
+        assertEquals(3, PipelineMetrics.statistics(Stage.BUILD_FREQUENCY).getCount());
+        assertEquals(1, PipelineMetrics.statistics(Stage.COSINE).getCount());
+        assertEquals(expected.size(), PipelineMetrics.statistics(Stage.COSINE).getUnits());
+
+        PipelineMetrics.StageMXBean segment = PipelineMetrics.statistics(Stage.SEGMENT);
+        assertTrue(segment.getTotalNanos() > 0);
+        assertTrue(segment.getP50Nanos() <= segment.getP99Nanos());
+        assertTrue(segment.getP99Nanos() <= segment.getMaxNanos());
+    }
+
+    // 流式读取时读取、预处理、分词和词频统计各记一次，处理量与整篇读入时一致
+    @Test
+    public void testStreamingRecordsEachStage() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append(TEXT).append(i);
+        }
+        Path file = Files.createTempFile("metrics", ".txt");
+        DocumentVector vector;
+        try {
+            Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+            PipelineMetrics.setEnabled(true);
+            vector = FileHandler.readVector(file.toString());
+            PipelineMetrics.setEnabled(false);
+        } finally {
+            Files.delete(file);
+        }
+        GramCountMap expected = TextProcessor.buildGramFrequency(text.toString());
+        assertEquals(expected.size(), vector.size());
+        expected.forEach((gram, count) -> assertEquals(count, vector.counts().get(gram)));
+
+        assertEquals(1, PipelineMetrics.statistics(Stage.READ).getCount());
+        assertEquals(text.toString().getBytes(StandardCharsets.UTF_8).length, PipelineMetrics.statistics(Stage.READ).getUnits());
+        assertEquals(1, PipelineMetrics.statistics(Stage.PREPROCESS).getCount());
+        assertEquals(text.length(), PipelineMetrics.statistics(Stage.PREPROCESS).getUnits());
+        assertEquals(1, PipelineMetrics.statistics(Stage.SEGMENT).getCount());
+        assertEquals(sum(expected), PipelineMetrics.statistics(Stage.SEGMENT).getUnits());
+        assertEquals(1, PipelineMetrics.statistics(Stage.BUILD_FREQUENCY).getCount());
+        assertEquals(expected.size(), PipelineMetrics.statistics(Stage.BUILD_FREQUENCY).getUnits());
+        // 词频统计只含处理字符的时间，覆盖预处理和分词
+        long frequency = PipelineMetrics.statistics(Stage.BUILD_FREQUENCY).getTotalNanos();
+        assertTrue(frequency >= PipelineMetrics.statistics(Stage.PREPROCESS).getTotalNanos());
+        assertTrue(frequency >= PipelineMetrics.statistics(Stage.SEGMENT).getTotalNanos());
+    }
+
+    private static long sum(GramCountMap counts) {
+        long[] total = new long[1];
+        counts.forEach((gram, count) -> total[0] += count);
+        return total[0];
+    }
+
+    // 多线程并发记录不丢失计数
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        PipelineMetrics.setEnabled(true);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    PipelineMetrics.stop(Stage.COSINE, PipelineMetrics.start(Stage.COSINE), 2);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40_000, PipelineMetrics.statistics(Stage.COSINE).getCount());
+        assertEquals(80_000, PipelineMetrics.statistics(Stage.COSINE).getUnits());
+    }
+
+    @Test
+    public void testJsonAndMBeans() throws Exception {
+        PipelineMetrics.setEnabled(true);
+        SimilarityCalculator.calculateSimilarity(TEXT, TEXT);
+        String json = PipelineMetrics.toJson();
+        assertTrue(json, json.startsWith("{\"enabled\":true,\"stages\":{\"read\":{\"count\":0,"));
+        assertTrue(json, json.contains("\"cosine\":{\"count\":1,"));
+        assertTrue(json, json.contains("\"grams\":"));
+
+        PipelineMetrics.registerMBeans();
+        PipelineMetrics.registerMBeans(); // 重复注册被忽略
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(1L, server.getAttribute(new ObjectName("text:type=PipelineStage,name=cosine"), "Count"));
+        ObjectName control = new ObjectName("text:type=PipelineMetrics");
+        assertEquals(Boolean.TRUE, server.getAttribute(control, "Enabled"));
+        server.invoke(control, "reset", null, null);
+        assertEquals(0L, server.getAttribute(new ObjectName("text:type=PipelineStage,name=cosine"), "Count"));
+    }
+}
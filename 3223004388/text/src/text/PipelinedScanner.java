@@ -0,0 +1,256 @@
+package text;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * 流水线式逐篇查重：把一个（可能非常大的）待检论文目录中的每篇论文与同一篇原文比较
+ * <p>
+ * 分三级流水线，级间用有界队列连接：
+ * <ol>
+ * <li>读取：惰性遍历目录，每个文件一个虚拟线程（JDK 21以下退回线程池）阻塞读取</li>
+ * <li>分词打分：CPU核数个线程分词计数，并与原文向量计算相似度</li>
+ * <li>输出：调用线程按完成顺序逐条交给 {@link ResultSink}</li>
+ * </ol>
+ * 进入流水线的文件数由信号量限制，输出一条结果才放行下一个文件，下游处理不过来时读取自然停下，
+ * 因此峰值内存只取决于在途文件数而与目录大小无关。超过 {@value #STREAMING_FILE_BYTES} 字节的文件
+ * 不整篇读入，由分词线程流式读取计数
+ */
+public class PipelinedScanner {
+    // 超过此大小的文件在分词阶段流式读取，避免整篇读入堆内存
+    static final long STREAMING_FILE_BYTES = 16L << 20;
+    // 默认在途文件数（每个分词线程）
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
+    private final DocumentVector original;
+    private final int segmentThreads;
+    private final int maxInFlight;
+
+    /**
+     * 分词线程数为CPU核数
+     */
+    public PipelinedScanner(DocumentVector original) {
+        this(original, Runtime.getRuntime().availableProcessors());
+    }
+
+    public PipelinedScanner(DocumentVector original, int segmentThreads) {
+        this(original, segmentThreads, segmentThreads * IN_FLIGHT_PER_THREAD);
+    }
+
+    /**
+     * @param original 原文词频向量
+     * @param segmentThreads 分词打分线程数
+     * @param maxInFlight 同时处于流水线中（读取中、排队或处理中）的最大文件数
+     */
+    public PipelinedScanner(DocumentVector original, int segmentThreads, int maxInFlight) {
+        if (segmentThreads < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("线程数和在途文件数必须为正数");
+        }
+        this.original = original;
+        this.segmentThreads = segmentThreads;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * 递归扫描目录下的全部文件，每篇论文的结果按完成顺序回调（不保证与文件顺序一致）
+     * 任一文件读取失败或回调抛出异常时停止扫描并抛出该异常
+     * @param directory 待检论文目录
+     * @param sink 结果回调，只在调用线程上执行
+     * @return 处理的文件数
+     * @throws IOException 目录不存在或读取失败
+     */
+    public long scan(Path directory, ResultSink sink) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("路径不是一个目录: " + directory);
+        }
+        // 队列容量能容纳全部在途文件和结束标记，真正的背压来自在途文件数的信号量
+        BlockingQueue<Item> read = new ArrayBlockingQueue<>(maxInFlight + segmentThreads);
+        BlockingQueue<Item> scored = new ArrayBlockingQueue<>(maxInFlight + segmentThreads);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<Throwable> walkFailure = new AtomicReference<>();
+
+        ExecutorService readers = TaskExecutors.newPerTaskExecutor();
+        ExecutorService segmenters = Executors.newFixedThreadPool(segmentThreads);
+        for (int i = 0; i < segmentThreads; i++) {
+            segmenters.execute(() -> segmentLoop(read, scored));
+        }
+        Thread walker = new Thread(() -> walk(directory, readers, read, inFlight, walkFailure),
+                "pipelined-scanner-walker");
+        walker.setDaemon(true);
+        walker.start();
+
+        long processed = 0;
+        boolean completed = false;
+        try {
+            int finished = 0;
+            while (finished < segmentThreads) {
+                Item item = scored.take();
+                if (item == Item.END) {
+                    finished++;
+                    continue;
+                }
+                if (item.failure != null) {
+                    throw item.failure;
+                }
+                sink.accept(directory.relativize(item.path).toString(), item.similarity);
+                processed++;
+                inFlight.release();
+            }
+            walker.join();
+            Throwable failure = walkFailure.get();
+            if (failure instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) failure).getCause();
+            }
+            if (failure != null) {
+                throw new IOException("目录遍历失败: " + failure.getMessage(), failure);
+            }
+            completed = true;
+            return processed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("扫描被中断", e);
+        } finally {
+            if (!completed) {
+                // 出错时中断所有阶段：阻塞在信号量或队列上的线程都会退出
+                walker.interrupt();
+                readers.shutdownNow();
+                segmenters.shutdownNow();
+            } else {
+                readers.shutdown();
+                segmenters.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 读取阶段：逐个文件取得放行许可后交给读取线程，遍历结束且全部读取完成后通知分词线程退出
+     */
+    private void walk(Path directory, ExecutorService readers, BlockingQueue<Item> read,
+                      Semaphore inFlight, AtomicReference<Throwable> walkFailure) {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            Iterator<Path> files = stream.filter(Files::isRegularFile).iterator();
+            while (files.hasNext()) {
+                Path file = files.next();
+                inFlight.acquire();
+                readers.execute(() -> putQuietly(read, readFile(file)));
+            }
+        } catch (InterruptedException e) {
+            return;
+        } catch (IOException | RuntimeException e) {
+            walkFailure.set(e);
+        }
+        readers.shutdown();
+        try {
+            readers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            for (int i = 0; i < segmentThreads; i++) {
+                read.put(Item.END);
+            }
+        } catch (InterruptedException e) {
+            // 被中断说明扫描已经失败，调用线程不再等待结束标记
+        }
+    }
+
+    private static Item readFile(Path file) {
+        try {
+            if (Files.size(file) > STREAMING_FILE_BYTES) {
+                return new Item(file, null);
+            }
+            return new Item(file, FileHandler.readFile(file.toString()));
+        } catch (IOException e) {
+            return Item.failed(file, e);
+        }
+    }
+
+    /**
+     * 分词打分阶段：整篇读入的文本直接分词，大文件流式读取计数
+     */
+    private void segmentLoop(BlockingQueue<Item> read, BlockingQueue<Item> scored) {
+        try {
+            while (true) {
+                Item item = read.take();
+                if (item == Item.END) {
+                    scored.put(Item.END);
+                    return;
+                }
+                if (item.failure == null) {
+                    try {
+                        DocumentVector vector = item.text != null
+                                ? new DocumentVector(TextProcessor.buildGramFrequency(item.text))
+                                : FileHandler.readVector(item.path.toString());
+                        item = item.scored(SimilarityCalculator.calculateSimilarity(original, vector));
+                    } catch (IOException e) {
+                        item = Item.failed(item.path, e);
+                    } catch (Throwable e) {
+                        // 包括处理超大文件时的OutOfMemoryError等，转成失败结果交给调用线程，否则调用线程会一直等待
+                        item = Item.failed(item.path, new IOException("处理失败: " + item.path, e));
+                    }
+                }
+                scored.put(item);
+            }
+        } catch (InterruptedException e) {
+            // 扫描已失败，线程池关闭
+        }
+    }
+
+    private static void putQuietly(BlockingQueue<Item> queue, Item item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 在级间传递的一篇论文：读取阶段填入文本，打分阶段填入相似度并释放文本
+     */
+    private static final class Item {
+        static final Item END = new Item(null, null);
+
+        final Path path;
+        final String text;
+        final double similarity;
+        final IOException failure;
+
+        Item(Path path, String text) {
+            this(path, text, 0, null);
+        }
+
+        private Item(Path path, String text, double similarity, IOException failure) {
+            this.path = path;
+            this.text = text;
+            this.similarity = similarity;
+            this.failure = failure;
+        }
+
+        static Item failed(Path path, IOException failure) {
+            return new Item(path, null, 0, failure);
+        }
+
+        Item scored(double similarity) {
+            return new Item(path, null, similarity, null);
+        }
+    }
+
+    /**
+     * 结果回调
+     */
+    @FunctionalInterface
+    public interface ResultSink {
+        /**
+         * @param name 相对于扫描目录的文件路径
+         * @param similarity 保留两位小数的相似度
+         */
+        void accept(String name, double similarity) throws IOException;
+    }
+}
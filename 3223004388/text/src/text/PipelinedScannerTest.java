@@ -0,0 +1,120 @@
+package text;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class PipelinedScannerTest {
+    private static final String ORIGINAL = "今天是星期天，天气晴，今天晚上我要去看电影。数据挖掘是从大量数据中提取价值信息的过程。";
+    private static final String[] PARTS = {
+            "今天是周天，天气晴朗，我晚上要去看电影。",
+            "数据挖掘是从大量数据中提取价值信息的过程，结合统计学和数据库技术。",
+            "区块链通过分布式账本和共识机制保证交易记录不可篡改。",
+            "Quantum computing uses superposition and entanglement."
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = temporaryFolder.getRoot().toPath();
+    }
+
+    // 递归扫描的每篇结果与逐篇顺序计算一致；在途文件数为1时流水线也能走完
+    @Test
+    public void testMatchesSequentialSimilarity() throws IOException {
+        Map<String, Double> expected = new HashMap<>();
+        Random random = new Random(3);
+        Files.createDirectories(directory.resolve("sub"));
+        for (int i = 0; i < 50; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int p = random.nextInt(6); p >= 0; p--) {
+                text.append(PARTS[random.nextInt(PARTS.length)]);
+            }
+            String name = (i % 3 == 0 ? "sub/" : "") + "paper" + i + ".txt";
+            Files.write(directory.resolve(name), text.toString().getBytes(StandardCharsets.UTF_8));
+            expected.put(directory.resolve(name).toString(), SimilarityCalculator.calculateSimilarity(ORIGINAL, text.toString()));
+        }
+        Files.write(directory.resolve("empty.txt"), new byte[0]);
+        expected.put(directory.resolve("empty.txt").toString(), SimilarityCalculator.calculateSimilarity(ORIGINAL, ""));
+
+        for (int maxInFlight : new int[]{1, 16}) {
+            Map<String, Double> actual = new HashMap<>();
+            PipelinedScanner scanner = new PipelinedScanner(DocumentVector.of(ORIGINAL), 3, maxInFlight);
+            long processed = scanner.scan(directory, (name, similarity) ->
+                    assertNull(actual.put(directory.resolve(name).toString(), similarity)));
+            assertEquals(expected.size(), processed);
+            assertEquals(expected, actual);
+        }
+    }
+
+    // 输出阶段出错时中止整个流水线并抛出原异常
+    @Test(timeout = 10000)
+    public void testSinkFailureStopsScan() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            Files.write(directory.resolve("paper" + i + ".txt"), PARTS[i % PARTS.length].getBytes(StandardCharsets.UTF_8));
+        }
+        PipelinedScanner scanner = new PipelinedScanner(DocumentVector.of(ORIGINAL), 2, 4);
+        int[] accepted = new int[1];
+        try {
+            scanner.scan(directory, (name, similarity) -> {
+                if (++accepted[0] == 10) {
+                    throw new IOException("磁盘已满");
+                }
+            });
+            fail("应抛出IOException");
+        } catch (IOException e) {
+            assertEquals("磁盘已满", e.getMessage());
+        }
+        assertEquals(10, accepted[0]);
+    }
+
+    // 分词线程抛出Error时转为失败结果，扫描以异常结束而不是一直等待
+    @Test(timeout = 10000)
+    public void testSegmenterErrorFailsScan() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            Files.write(directory.resolve("paper" + i + ".txt"), PARTS[i % PARTS.length].getBytes(StandardCharsets.UTF_8));
+        }
+        PipelinedScanner scanner = new PipelinedScanner(DocumentVector.of(ORIGINAL), 2, 4);
+        Segmenter previous = TextProcessor.getSegmenter();
+        TextProcessor.setSegmenter(new Segmenter() {
+            @Override
+            public void segment(CharSequence text, GramSink sink) {
+                throw new StackOverflowError();
+            }
+
+            @Override
+            public String name() {
+                return "broken";
+            }
+        });
+        try {
+            scanner.scan(directory, (name, similarity) -> { });
+            fail("应抛出IOException");
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof StackOverflowError);
+        } finally {
+            TextProcessor.setSegmenter(previous);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsNonDirectory() throws IOException {
+        Path file = directory.resolve("a.txt");
+        Files.write(file, PARTS[0].getBytes(StandardCharsets.UTF_8));
+        new PipelinedScanner(DocumentVector.of(ORIGINAL)).scan(file, (name, similarity) -> { });
+    }
+}
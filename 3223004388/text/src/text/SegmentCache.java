@@ -0,0 +1,215 @@
+package text;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 常驻服务用的分词结果内存缓存：文本 → 词频向量（含模长）
+ * <p>
+ * 以文本内容的128位哈希加长度为键；容量按估算字节数而不是条目数限制；
+ * 按键哈希分成若干段，每段独立加锁、独立做LRU淘汰，减少并发争用。
+ * 缓存的向量会被多个线程共享，调用方不能修改其计数表
+ */
+public class SegmentCache {
+    private static final int DEFAULT_STRIPES = 16;
+
+    private final Stripe[] stripes;
+    private final long maxBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SegmentCache(long maxBytes) {
+        this(maxBytes, DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param maxBytes 估算内存上限（字节）
+     * @param stripeCount 分段数
+     */
+    public SegmentCache(long maxBytes, int stripeCount) {
+        if (maxBytes <= 0 || stripeCount <= 0) {
+            throw new IllegalArgumentException("容量和分段数必须为正数");
+        }
+        this.maxBytes = maxBytes;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(Math.max(1, maxBytes / stripeCount));
+        }
+    }
+
+    /**
+     * 返回文本的词频向量，未命中时分词并放入缓存
+     */
+    public DocumentVector get(String text) {
+        TextKey key = TextKey.of(text, TextProcessor.getSegmenter(), TextProcessor.getStopWordFilter());
+        Stripe stripe = stripes[(int) ((key.hash1 >>> 1) % stripes.length)];
+        DocumentVector vector = stripe.get(key);
+        if (vector != null) {
+            hits.increment();
+            return vector;
+        }
+        misses.increment();
+        // 分词在锁外进行，同一文本并发未命中时可能重复计算，但不会阻塞同段的其他查询
+        vector = DocumentVector.of(text);
+        stripe.put(key, vector, estimateBytes(vector));
+        return vector;
+    }
+
+    /**
+     * 估算向量占用的堆内存
+     */
+    static long estimateBytes(DocumentVector vector) {
+        // 向量对象、计数表对象和两个数组头约96字节，加上键对象
+        return 96 + 40 + vector.counts().capacity() * (8L + 4L);
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * 当前估算占用字节数
+     */
+    public long estimatedBytes() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.bytes();
+        }
+        return total;
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentCache{hits=" + hitCount() + ", misses=" + missCount() + ", evictions=" + evictionCount()
+                + ", bytes=" + estimatedBytes() + "/" + maxBytes + "}";
+    }
+
+    /**
+     * 一个独立加锁的LRU分段
+     */
+    private final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<TextKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final long budget;
+        private long bytes;
+
+        Stripe(long budget) {
+            this.budget = budget;
+        }
+
+        DocumentVector get(TextKey key) {
+            lock.lock();
+            try {
+                Entry entry = entries.get(key);
+                return entry == null ? null : entry.vector;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(TextKey key, DocumentVector vector, long size) {
+            if (size > budget) {
+                return; // 单条超过分段容量时不缓存
+            }
+            lock.lock();
+            try {
+                Entry previous = entries.put(key, new Entry(vector, size));
+                if (previous != null) {
+                    bytes -= previous.size;
+                }
+                bytes += size;
+                // 按访问顺序从最久未用的开始淘汰
+                Iterator<Map.Entry<TextKey, Entry>> it = entries.entrySet().iterator();
+                while (bytes > budget && it.hasNext()) {
+                    Entry eldest = it.next().getValue();
+                    it.remove();
+                    bytes -= eldest.size;
+                    evictions.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long bytes() {
+            lock.lock();
+            try {
+                return bytes;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Entry {
+        final DocumentVector vector;
+        final long size;
+
+        Entry(DocumentVector vector, long size) {
+            this.vector = vector;
+            this.size = size;
+        }
+    }
+
+    /**
+     * 文本键：两个独立的64位哈希加长度，碰撞概率可以忽略
+     */
+    static final class TextKey {
+        final long hash1;
+        final long hash2;
+        final int length;
+
+        private TextKey(long hash1, long hash2, int length) {
+            this.hash1 = hash1;
+            this.hash2 = hash2;
+            this.length = length;
+        }
+
+        /**
+         * 分词策略的标识和停用词表摘要也计入键，切换策略或停用词表后不会取到旧的结果
+         */
+        static TextKey of(String text, Segmenter segmenter, StopWordFilter stopWords) {
+            String s = text == null ? "" : text;
+            int variant = 31 * segmenter.name().hashCode() + stopWords.digest().hashCode();
+            long h1 = 0xcbf29ce484222325L ^ variant; // FNV-1a
+            long h2 = 0x9e3779b97f4a7c15L ^ ((long) variant << 32);
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                h1 = (h1 ^ c) * 0x100000001b3L;
+                h2 = (h2 + c) * 0xc2b2ae3d27d4eb4fL;
+                h2 ^= h2 >>> 29;
+            }
+            return new TextKey(MinHasher.mix(h1), MinHasher.mix(h2), s.length());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TextKey)) {
+                return false;
+            }
+            TextKey other = (TextKey) o;
+            return hash1 == other.hash1 && hash2 == other.hash2 && length == other.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash1 ^ (hash1 >>> 32));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package text;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+public class SegmentCacheTest {
+    private static final String TEXT1 = "这是一篇原创论文，讨论人工智能在医疗领域的应用。";
+    private static final String TEXT2 = "这是一篇抄袭论文，讨论人工智能在教育领域的应用。";
+
+    @After
+    public void tearDown() {
+        SimilarityCalculator.setSegmentCache(null);
+    }
+
+    @Test
+    public void testHitReturnsSameVector() {
+        SegmentCache cache = new SegmentCache(1 << 20);
+        DocumentVector first = cache.get(TEXT1);
+        DocumentVector second = cache.get(TEXT1);
+        assertSame(first, second);
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(DocumentVector.of(TEXT1).squaredNorm(), first.squaredNorm());
+    }
+
+    // 更换停用词表后不命中旧词表下的结果，换回后仍命中
+    @Test
+    public void testStopWordFilterChangeMisses() {
+        SegmentCache cache = new SegmentCache(1 << 20);
+        DocumentVector before = cache.get(TEXT1);
+        StopWordFilter previous = TextProcessor.getStopWordFilter();
+        try {
+            TextProcessor.setStopWordFilter(StopWordFilter.of(Arrays.asList("人工智能")));
+            DocumentVector after = cache.get(TEXT1);
+            assertNotSame(before, after);
+            assertEquals(2, cache.missCount());
+            assertEquals(DocumentVector.of(TEXT1).squaredNorm(), after.squaredNorm());
+        } finally {
+            TextProcessor.setStopWordFilter(previous);
+        }
+        assertSame(before, cache.get(TEXT1));
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    public void testEvictsWhenOverBudget() {
+        DocumentVector sample = DocumentVector.of(TEXT1 + 0);
+        long entryBytes = SegmentCache.estimateBytes(sample);
+        // 单段，只能容纳约3条
+        SegmentCache cache = new SegmentCache(entryBytes * 3 + entryBytes / 2, 1);
+        for (int i = 0; i < 10; i++) {
+            cache.get(TEXT1 + i);
+        }
+        assertTrue(cache.evictionCount() >= 7);
+        assertTrue(cache.estimatedBytes() <= cache.maxBytes());
+        // 最近使用的仍在缓存中
+        cache.get(TEXT1 + 9);
+        assertEquals(1, cache.hitCount());
+        // 最早放入的已被淘汰
+        cache.get(TEXT1 + 0);
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    public void testCalculatorUsesCacheTransparently() {
+        double expected = SimilarityCalculator.calculateSimilarity(TEXT1, TEXT2);
+        SegmentCache cache = new SegmentCache(1 << 20);
+        SimilarityCalculator.setSegmentCache(cache);
+        assertEquals(expected, SimilarityCalculator.calculateSimilarity(TEXT1, TEXT2), 0.0);
+        assertEquals(expected, SimilarityCalculator.calculateSimilarity(TEXT1, TEXT2), 0.0);
+        assertEquals(2, cache.missCount());
+        assertEquals(2, cache.hitCount());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        SegmentCache cache = new SegmentCache(1 << 20, 4);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    cache.get(TEXT1 + (i % 20));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(800, cache.hitCount() + cache.missCount());
+        assertTrue(cache.missCount() >= 20);
+    }
+}
@@ -0,0 +1,19 @@
+package text;
+
+/**
+ * 分词策略：把文本切分为gram并以long编码推送给sink
+ * <p>
+ * 实现需要线程安全（同一实例会被多个线程同时使用），且对相同文本产生相同的编码序列。
+ * 全局使用的策略通过 {@link TextProcessor#setSegmenter(Segmenter)} 设置
+ */
+public interface Segmenter {
+    /**
+     * 对原始文本（未预处理）分词
+     */
+    void segment(CharSequence text, GramSink sink);
+
+    /**
+     * 策略标识，只含字母、数字和连字符；用于命令行选择和缓存键，配置不同的实例应返回不同的标识
+     */
+    String name();
+}
@@ -0,0 +1,177 @@
+package text;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class SegmenterTest {
+    @After
+    public void restoreDefault() {
+        TextProcessor.setSegmenter(CharNGramSegmenter.INSTANCE);
+    }
+
+    private static List<Long> codes(Segmenter segmenter, String text) {
+        List<Long> codes = new ArrayList<>();
+        segmenter.segment(text, codes::add);
+        return codes;
+    }
+
+    // 默认策略与原有分词结果一致
+    @Test
+    public void testCharNGramMatchesDefault() {
+        String text = "今天是星期天，天气晴。Hello World 2024";
+        List<Long> expected = new ArrayList<>();
+        TextProcessor.segment(text, expected::add);
+        assertEquals(expected, codes(CharNGramSegmenter.INSTANCE, text));
+        assertTrue(TextProcessor.usesCharNGrams());
+    }
+
+    // 双数组字典树的最长匹配与逐词比较的结果一致
+    @Test
+    public void testTrieLongestMatch() {
+        List<String> words = new ArrayList<>(new TreeSet<>(Arrays.asList("人工", "人工智能", "智能", "数据", "数据挖掘", "数")));
+        DoubleArrayTrie trie = new DoubleArrayTrie(words);
+        String text = "人工智能数据挖掘数学人";
+        char[] chars = text.toCharArray();
+        for (int start = 0; start < chars.length; start++) {
+            int expected = 0;
+            for (String word : words) {
+                if (text.startsWith(word, start)) {
+                    expected = Math.max(expected, word.length());
+                }
+            }
+            assertEquals("start=" + start, expected, trie.longestMatch(chars, start, chars.length));
+        }
+        assertEquals(0, trie.longestMatch(chars, 0, 1)); // "人" 不是词
+    }
+
+    // 较大的随机词表：每个位置的最长匹配与暴力结果一致
+    @Test
+    public void testTrieMatchesBruteForceOnRandomDictionary() {
+        Random random = new Random(19);
+        String alphabet = "的一是在人有我他这中大来上国个到说们为子和你地出道也时年ab";
+        TreeSet<String> dictionary = new TreeSet<>();
+        for (int i = 0; i < 3000; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 1 + random.nextInt(5);
+            for (int k = 0; k < length; k++) {
+                word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            dictionary.add(word.toString());
+        }
+        DoubleArrayTrie trie = new DoubleArrayTrie(new ArrayList<>(dictionary));
+        for (int round = 0; round < 200; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int k = 0; k < 20; k++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            char[] chars = text.toString().toCharArray();
+            for (int start = 0; start < chars.length; start++) {
+                int expected = 0;
+                for (int end = start + 1; end <= chars.length; end++) {
+                    if (dictionary.contains(text.substring(start, end))) {
+                        expected = end - start;
+                    }
+                }
+                assertEquals(expected, trie.longestMatch(chars, start, chars.length));
+            }
+        }
+    }
+
+    @Test
+    public void testDictionaryForwardMaximumMatching() {
+        DictionarySegmenter segmenter = DictionarySegmenter.of(Arrays.asList("人工智能", "人工", "技术", "发展", "迅速"));
+        assertEquals(Arrays.asList("人工智能", "技术", "的", "发展", "非", "常", "迅速", "ai", "2024"),
+                segmenter.words("人工智能技术的发展非常迅速，AI 2024！"));
+    }
+
+    @Test
+    public void testDictionaryLoadFromFile() throws IOException {
+        Path file = Files.createTempFile("dict", ".txt");
+        try {
+            Files.write(file, Arrays.asList("# 注释", "人工智能 100 n", "", "技术\t50"), StandardCharsets.UTF_8);
+            DictionarySegmenter segmenter = DictionarySegmenter.load(file);
+            assertEquals(Arrays.asList("人工智能", "技术"), segmenter.words("人工智能技术"));
+            // 相同词表得到相同标识，缓存可以复用
+            assertEquals(DictionarySegmenter.of(Arrays.asList("技术", "人工智能")).name(), segmenter.name());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // 每个词一个编码，相邻词另有一个词组编码，标点处断开
+    @Test
+    public void testDictionaryEmitsWordsAndPairs() {
+        DictionarySegmenter segmenter = DictionarySegmenter.of(Arrays.asList("人工智能", "技术"));
+        List<Long> codes = codes(segmenter, "人工智能技术。技术");
+        long ai = GramCodes.hashed("人工智能".toCharArray(), 0, 4);
+        long tech = GramCodes.hashed("技术".toCharArray(), 0, 2);
+        assertEquals(Arrays.asList(ai, tech, GramCodes.combine(ai, tech), tech), codes);
+        for (long code : codes) {
+            assertTrue(GramCodes.isHashed(code));
+            assertEquals(0, GramCodes.length(code));
+        }
+    }
+
+    @Test
+    public void testWordShingles() {
+        WordShingleSegmenter segmenter = new WordShingleSegmenter(2);
+        List<Long> codes = codes(segmenter, "The quick, brown fox");
+        assertEquals(3, codes.size());
+        // 与大小写、标点无关，与词序有关
+        assertEquals(codes, codes(segmenter, "the QUICK brown... fox"));
+        assertFalse(codes.equals(codes(segmenter, "quick the brown fox")));
+        // 不足一个词组的短文本也有编码
+        assertEquals(1, codes(new WordShingleSegmenter(), "hello world").size());
+        assertTrue(codes(segmenter, "，。！").isEmpty());
+    }
+
+    // 切换策略后整条计算链路使用新的编码，且缓存按策略区分
+    @Test
+    public void testSimilarityWithEachStrategy() {
+        String original = "the quick brown fox jumps over the lazy dog near the river bank";
+        String reordered = "near the river bank the lazy dog jumps over the quick brown fox";
+        double byChars = SimilarityCalculator.calculateSimilarity(original, reordered);
+
+        TextProcessor.setSegmenter(new WordShingleSegmenter());
+        assertFalse(TextProcessor.usesCharNGrams());
+        assertEquals(1.0, SimilarityCalculator.calculateSimilarity(original, original), 1e-9);
+        double byWords = SimilarityCalculator.calculateSimilarity(original, reordered);
+        assertTrue(byWords < byChars);
+        StopWordFilter stopWords = TextProcessor.getStopWordFilter();
+        assertFalse(SegmentCache.TextKey.of(original, CharNGramSegmenter.INSTANCE, stopWords)
+                .equals(SegmentCache.TextKey.of(original, TextProcessor.getSegmenter(), stopWords)));
+
+        TextProcessor.setSegmenter(DictionarySegmenter.of(Arrays.asList("人工智能", "技术")));
+        assertEquals(1.0, SimilarityCalculator.calculateSimilarity("人工智能技术", "人工智能技术"), 1e-9);
+        assertEquals(0.0, SimilarityCalculator.calculateSimilarity("人工智能", "技术"), 1e-9);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testIncrementalRequiresCharNGrams() {
+        TextProcessor.setSegmenter(new WordShingleSegmenter());
+        new IncrementalScorer(DocumentVector.of("原文内容"), "修改稿");
+    }
+
+    @Test
+    public void testParseSegmenter() throws IOException {
+        assertSame(CharNGramSegmenter.INSTANCE, Main.parseSegmenter("char"));
+        assertEquals("word3", Main.parseSegmenter("word").name());
+        assertEquals("word5", Main.parseSegmenter("word5").name());
+        try {
+            Main.parseSegmenter("unknown");
+            fail("应拒绝未知策略");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -1,55 +1,305 @@
-package text;
-
-import java.util.*;
-
-public class SimilarityCalculator {
-    /**
-     * 基于混合n-gram的余弦相似度计算
-     */
-    public static double calculateSimilarity(String text1, String text2) {
-        // 1. 混合n-gram分词
-        List<String> grams1 = TextProcessor.segment(text1);
-        List<String> grams2 = TextProcessor.segment(text2);
-
-        // 2. 处理空文本
-        if (grams1.isEmpty() && grams2.isEmpty()) {
-            return 1.00;
-        }
-        if (grams1.isEmpty() || grams2.isEmpty()) {
-            return 0.00;
-        }
-
-        // 3. 词频统计
-        Map<String, Integer> freq1 = TextProcessor.buildWordFrequency(grams1);
-        Map<String, Integer> freq2 = TextProcessor.buildWordFrequency(grams2);
-
-        // 4. 计算余弦相似度（增加对高频gram的权重）
-        Set<String> allGrams = new HashSet<>(freq1.keySet());
-        allGrams.addAll(freq2.keySet());
-
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-
-        for (String gram : allGrams) {
-            int count1 = freq1.getOrDefault(gram, 0);
-            int count2 = freq2.getOrDefault(gram, 0);
-
-            // 对高频gram（出现次数≥2）增加权重（1.2倍），放大共同特征
-            double weight = (count1 >= 2 && count2 >= 2) ? 1.2 : 1.0;
-            
-            dotProduct += count1 * count2 * weight;  // 加权点积
-            norm1 += Math.pow(count1 * weight, 2);   // 加权模长1
-            norm2 += Math.pow(count2 * weight, 2);   // 加权模长2
-        }
-
-        // 避免除零错误
-        if (norm1 == 0 || norm2 == 0) {
-            return 0.00;
-        }
-
-        // 计算并保留两位小数
-        double similarity = dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
-        return Math.round(similarity * 100.0) / 100.0;
-    }
-}
+package text;
+
+import java.util.Arrays;
+
+public class SimilarityCalculator {
+    // 高频gram（两侧出现次数均≥2）的放大权重
+    static final double HIGH_FREQUENCY_WEIGHT = 1.2;
+    // 有序数组打分时，较大向量超过较小向量的这个倍数就改用跳跃查找
+    private static final int SKEWED_SIZE_RATIO = 8;
+    // 分词结果缓存，常驻服务中开启；为null时每次都重新分词
+    private static volatile SegmentCache segmentCache;
+
+    /**
+     * 设置分词结果缓存，传入null关闭缓存
+     */
+    public static void setSegmentCache(SegmentCache cache) {
+        segmentCache = cache;
+    }
+
+    public static SegmentCache getSegmentCache() {
+        return segmentCache;
+    }
+
+    /**
+     * 基于混合n-gram的余弦相似度计算
+     */
+    public static double calculateSimilarity(String text1, String text2) {
+        // 1. 混合n-gram分词 + 2. 词频统计（编码直接计入原始类型哈希表），开启缓存时优先复用
+        SegmentCache cache = segmentCache;
+        DocumentVector vector1 = cache == null ? DocumentVector.of(text1) : cache.get(text1);
+        DocumentVector vector2 = cache == null ? DocumentVector.of(text2) : cache.get(text2);
+        return calculateSimilarity(vector1, vector2);
+    }
+
+    /**
+     * 并行分词计数后计算相似度，结果与 {@link #calculateSimilarity(String, String)} 逐位一致
+     */
+    public static double calculateSimilarityParallel(String text1, String text2) {
+        return calculateSimilarity(ParallelSegmenter.vector(text1), ParallelSegmenter.vector(text2));
+    }
+
+    /**
+     * 对已构建好的词频向量计算相似度（保留两位小数）
+     */
+    public static double calculateSimilarity(DocumentVector vector1, DocumentVector vector2) {
+        long start = PipelineMetrics.start(PipelineMetrics.Stage.COSINE);
+        // 计算并保留两位小数
+        double similarity = Math.round(cosine(vector1, vector2) * 100.0) / 100.0;
+        PipelineMetrics.stop(PipelineMetrics.Stage.COSINE, start, Math.min(vector1.size(), vector2.size()));
+        return similarity;
+    }
+
+    /**
+     * 相似度是否不低于阈值，结果与 calculateSimilarity(text1, text2) &gt;= threshold 一致
+     * 只需要判定是否达到阈值（如0.8）时使用：按gram次数从高到低累加并维护相似度的上下界，
+     * 结论确定即停止，不必遍历全部gram（分词计数仍需完整进行）
+     */
+    public static boolean similarityAtLeast(String text1, String text2, double threshold) {
+        SegmentCache cache = segmentCache;
+        DocumentVector vector1 = cache == null ? DocumentVector.of(text1) : cache.get(text1);
+        DocumentVector vector2 = cache == null ? DocumentVector.of(text2) : cache.get(text2);
+        return similarityAtLeast(vector1, vector2, threshold);
+    }
+
+    public static boolean similarityAtLeast(DocumentVector vector1, DocumentVector vector2, double threshold) {
+        long start = PipelineMetrics.start(PipelineMetrics.Stage.COSINE);
+        ThresholdCosine result = ThresholdCosine.evaluate(vector1, vector2, threshold);
+        PipelineMetrics.stop(PipelineMetrics.Stage.COSINE, start, result.examined());
+        return result.atLeast();
+    }
+
+    /**
+     * 未舍入的加权余弦相似度
+     * 利用预计算的模长平方，只需遍历较小向量、在较大向量中查找交集
+     */
+    static double cosine(DocumentVector vector1, DocumentVector vector2) {
+        // 处理空文本
+        if (vector1.isEmpty() && vector2.isEmpty()) {
+            return 1.00;
+        }
+        if (vector1.isEmpty() || vector2.isEmpty()) {
+            return 0.00;
+        }
+
+        boolean firstSmaller = vector1.size() <= vector2.size();
+        GramCountMap smaller = firstSmaller ? vector1.counts() : vector2.counts();
+        GramCountMap larger = firstSmaller ? vector2.counts() : vector1.counts();
+        IntersectionCosine cosine = new IntersectionCosine(larger);
+        smaller.forEach(cosine);
+
+        long highSquares1 = firstSmaller ? cosine.highSquaresSmaller : cosine.highSquaresLarger;
+        long highSquares2 = firstSmaller ? cosine.highSquaresLarger : cosine.highSquaresSmaller;
+        return weightedCosine(cosine.dotLow, cosine.dotHigh,
+                vector1.squaredNorm(), highSquares1, vector2.squaredNorm(), highSquares2);
+    }
+
+    /**
+     * 对已排序的稀疏向量计算相似度（保留两位小数）
+     */
+    public static double calculateSimilarity(SparseGramVector vector1, SparseGramVector vector2) {
+        long start = PipelineMetrics.start(PipelineMetrics.Stage.COSINE);
+        double similarity = Math.round(cosine(vector1, vector2) * 100.0) / 100.0;
+        PipelineMetrics.stop(PipelineMetrics.Stage.COSINE, start, Math.min(vector1.size(), vector2.size()));
+        return similarity;
+    }
+
+    /**
+     * 未舍入的加权余弦相似度（有序数组版本），结果与哈希表版本逐位一致
+     * 以较小向量为主序逐个gram推进，在较大向量中向前查找：
+     * 两者大小相近时逐个后移（即归并扫描），相差悬殊时改为倍增+二分跳跃，
+     * 避免一篇短文与一篇长文比较时线性扫完整个长文向量
+     */
+    static double cosine(SparseGramVector vector1, SparseGramVector vector2) {
+        // 处理空文本
+        if (vector1.isEmpty() && vector2.isEmpty()) {
+            return 1.00;
+        }
+        if (vector1.isEmpty() || vector2.isEmpty()) {
+            return 0.00;
+        }
+        boolean firstSmaller = vector1.size() <= vector2.size();
+        SparseGramVector smaller = firstSmaller ? vector1 : vector2;
+        SparseGramVector larger = firstSmaller ? vector2 : vector1;
+        long[] smallKeys = smaller.keys();
+        int[] smallCounts = smaller.counts();
+        long[] largeKeys = larger.keys();
+        int[] largeCounts = larger.counts();
+        int largeSize = largeKeys.length;
+        boolean skewed = largeSize / SKEWED_SIZE_RATIO > smallKeys.length;
+
+        long dotLow = 0;
+        long dotHigh = 0;
+        long highSquaresSmaller = 0;
+        long highSquaresLarger = 0;
+        int i = 0;
+        int j = 0;
+        while (i < smallKeys.length && j < largeSize) {
+            long a = smallKeys[i];
+            if (skewed) {
+                j = seek(largeKeys, j, a);
+                if (j == largeSize) {
+                    break;
+                }
+            }
+            long b = largeKeys[j];
+            // 只有交集gram影响点积和权重；两侧次数均≥2时计入高频部分，用乘0/1代替分支
+            long c1 = a == b ? smallCounts[i] : 0;
+            long c2 = largeCounts[j];
+            long product = c1 * c2;
+            long high = (c1 >= 2 & c2 >= 2) ? 1 : 0;
+            dotHigh += product * high;
+            dotLow += product - product * high;
+            highSquaresSmaller += c1 * c1 * high;
+            highSquaresLarger += c2 * c2 * high;
+            // 键较小的一侧前进，相等时同时前进
+            i += a <= b ? 1 : 0;
+            j += b <= a ? 1 : 0;
+        }
+        long highSquares1 = firstSmaller ? highSquaresSmaller : highSquaresLarger;
+        long highSquares2 = firstSmaller ? highSquaresLarger : highSquaresSmaller;
+        return weightedCosine(dotLow, dotHigh,
+                vector1.squaredNorm(), highSquares1, vector2.squaredNorm(), highSquares2);
+    }
+
+    /**
+     * TF-IDF加权的余弦相似度（保留两位小数）
+     * 每个gram的权重为 词频 × IDF，所有论文都有的套话（如“本文研究”、致谢模板）权重最低，
+     * 不再使用高频gram放大权重
+     * @param idf 由 {@link CorpusStatistics} 在参考语料上生成、以同一分词策略统计的IDF表
+     */
+    public static double calculateTfIdfSimilarity(String text1, String text2, IdfTable idf) {
+        return calculateTfIdfSimilarity(DocumentVector.of(text1).sparse(), DocumentVector.of(text2).sparse(), idf);
+    }
+
+    public static double calculateTfIdfSimilarity(SparseGramVector vector1, SparseGramVector vector2, IdfTable idf) {
+        long start = PipelineMetrics.start(PipelineMetrics.Stage.COSINE);
+        double similarity = Math.round(tfIdfCosine(vector1, vector2, idf) * 100.0) / 100.0;
+        PipelineMetrics.stop(PipelineMetrics.Stage.COSINE, start, vector1.size() + vector2.size());
+        return similarity;
+    }
+
+    /**
+     * 未舍入的TF-IDF余弦相似度：两个向量的键都已升序，IDF按顺序批量查表，交集按归并扫描
+     */
+    static double tfIdfCosine(SparseGramVector vector1, SparseGramVector vector2, IdfTable idf) {
+        // 处理空文本
+        if (vector1.isEmpty() && vector2.isEmpty()) {
+            return 1.00;
+        }
+        if (vector1.isEmpty() || vector2.isEmpty()) {
+            return 0.00;
+        }
+        long[] keys1 = vector1.keys();
+        long[] keys2 = vector2.keys();
+        double[] weights1 = tfIdfWeights(vector1, idf);
+        double[] weights2 = tfIdfWeights(vector2, idf);
+        double dotProduct = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys1.length && j < keys2.length) {
+            long a = keys1[i];
+            long b = keys2[j];
+            if (a == b) {
+                dotProduct += weights1[i++] * weights2[j++];
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        double norm1 = 0;
+        for (double w : weights1) {
+            norm1 += w * w;
+        }
+        double norm2 = 0;
+        for (double w : weights2) {
+            norm2 += w * w;
+        }
+        // 避免除零错误
+        if (norm1 == 0 || norm2 == 0) {
+            return 0.00;
+        }
+        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    }
+
+    private static double[] tfIdfWeights(SparseGramVector vector, IdfTable idf) {
+        double[] weights = new double[vector.size()];
+        idf.idf(vector.keys(), weights);
+        int[] counts = vector.counts();
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] *= counts[i];
+        }
+        return weights;
+    }
+
+    /**
+     * 在升序数组中从from开始查找第一个不小于key的位置（倍增确定区间后二分）
+     */
+    static int seek(long[] keys, int from, long key) {
+        int n = keys.length;
+        int bound = 1;
+        while (from + bound < n && keys[from + bound] < key) {
+            bound <<= 1;
+        }
+        int index = Arrays.binarySearch(keys, from + (bound >> 1), Math.min(from + bound, n), key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * 由整数累加量计算加权余弦值
+     * 普通gram与高频gram的点积、平方和分开用long精确累加，
+     * 结果与遍历顺序无关，避免浮点累加误差
+     * @param dotLow 普通gram的点积
+     * @param dotHigh 高频gram的点积
+     * @param squares1 文本1全部gram计数平方和
+     * @param highSquares1 文本1高频gram计数平方和
+     * @param squares2 文本2全部gram计数平方和
+     * @param highSquares2 文本2高频gram计数平方和
+     */
+    static double weightedCosine(long dotLow, long dotHigh,
+                                 long squares1, long highSquares1,
+                                 long squares2, long highSquares2) {
+        double weightSquare = HIGH_FREQUENCY_WEIGHT * HIGH_FREQUENCY_WEIGHT;
+        double dotProduct = dotLow + dotHigh * HIGH_FREQUENCY_WEIGHT;            // 加权点积
+        double norm1 = (squares1 - highSquares1) + highSquares1 * weightSquare;  // 加权模长1
+        double norm2 = (squares2 - highSquares2) + highSquares2 * weightSquare;  // 加权模长2
+
+        // 避免除零错误
+        if (norm1 == 0 || norm2 == 0) {
+            return 0.00;
+        }
+        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    }
+
+    /**
+     * 交集遍历时的加权余弦累加器（只有两侧都出现的gram会影响点积和权重）
+     */
+    private static final class IntersectionCosine implements GramCountMap.EntryConsumer {
+        private final GramCountMap larger;
+        private long dotLow;
+        private long dotHigh;
+        private long highSquaresSmaller;
+        private long highSquaresLarger;
+
+        IntersectionCosine(GramCountMap larger) {
+            this.larger = larger;
+        }
+
+        @Override
+        public void accept(long gram, int count) {
+            int other = larger.get(gram);
+            if (other == 0) {
+                return;
+            }
+            // 对高频gram（出现次数≥2）增加权重（1.2倍），放大共同特征
+            if (count >= 2 && other >= 2) {
+                dotHigh += (long) count * other;
+                highSquaresSmaller += (long) count * count;
+                highSquaresLarger += (long) other * other;
+            } else {
+                dotLow += (long) count * other;
+            }
+        }
+    }
+}
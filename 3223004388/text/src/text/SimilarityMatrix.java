@@ -0,0 +1,159 @@
+package text;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * 目录内全部论文的两两相似度矩阵
+ * <p>
+ * 每篇论文只分词一次（复用 {@link CorpusIndex} 的并行构建），转为有序数组后只计算上三角。
+ * 矩阵按 tileSize × tileSize 分块：每次处理一个行块，行块内的各列块并行打分，
+ * 同一块内的行、列向量被反复使用，缓存命中率高；行块算完即按行顺序输出并释放，
+ * 任何时刻只保留 tileSize × N 个得分，不会把 N² 个结果全部放在内存中
+ * <p>
+ * 二进制格式（大端）：魔数 "SIMM"、版本号、文档数N、N个文件名（writeUTF），
+ * 随后按行优先顺序存放上三角（i &lt; j）的 N(N-1)/2 个未舍入 float 得分
+ */
+public class SimilarityMatrix {
+    public static final int DEFAULT_TILE_SIZE = 64;
+    static final int BINARY_MAGIC = 0x53494D4D; // "SIMM"
+    static final int BINARY_VERSION = 1;
+
+    private final CorpusIndex corpus;
+    private final SparseGramVector[] vectors;
+    private final int tileSize;
+
+    public SimilarityMatrix(CorpusIndex corpus) {
+        this(corpus, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * @param corpus 已构建的论文库
+     * @param tileSize 分块边长
+     */
+    public SimilarityMatrix(CorpusIndex corpus, int tileSize) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("分块大小必须为正数: " + tileSize);
+        }
+        this.corpus = corpus;
+        this.tileSize = tileSize;
+        this.vectors = new SparseGramVector[corpus.size()];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = corpus.vector(i).sparse();
+        }
+    }
+
+    /**
+     * 读取目录下的全部文件（不递归）并分词，文件按名称排序
+     */
+    public static SimilarityMatrix build(Path directory) throws IOException {
+        return new SimilarityMatrix(CorpusIndex.build(directory));
+    }
+
+    public int size() {
+        return vectors.length;
+    }
+
+    public String name(int docId) {
+        return corpus.name(docId);
+    }
+
+    /**
+     * 按行号升序逐行计算上三角，每行算完回调一次
+     * 回调中 scores[k] 是第row行与第 row+1+k 列的未舍入得分，数组在回调返回后会被丢弃
+     */
+    public void compute(RowConsumer consumer) throws IOException {
+        int n = vectors.length;
+        int tiles = (n + tileSize - 1) / tileSize;
+        for (int rowTile = 0; rowTile < tiles; rowTile++) {
+            int rowStart = rowTile * tileSize;
+            int rowEnd = Math.min(rowStart + tileSize, n);
+            double[][] rows = new double[rowEnd - rowStart][];
+            for (int row = rowStart; row < rowEnd; row++) {
+                rows[row - rowStart] = new double[n - row - 1];
+            }
+            // 行块内各列块互不重叠，并行写入各自的单元格
+            IntStream.range(rowTile, tiles).parallel().forEach(columnTile -> {
+                int columnStart = columnTile * tileSize;
+                int columnEnd = Math.min(columnStart + tileSize, n);
+                for (int row = rowStart; row < rowEnd; row++) {
+                    double[] scores = rows[row - rowStart];
+                    SparseGramVector vector = vectors[row];
+                    for (int column = Math.max(columnStart, row + 1); column < columnEnd; column++) {
+                        scores[column - row - 1] = SimilarityCalculator.cosine(vector, vectors[column]);
+                    }
+                }
+            });
+            for (int row = rowStart; row < rowEnd; row++) {
+                consumer.accept(row, rows[row - rowStart]);
+                rows[row - rowStart] = null;
+            }
+        }
+    }
+
+    /**
+     * 以CSV输出完整的 N×N 表格：首行为文件名，下三角和对角线留空，得分保留两位小数
+     */
+    public void writeCsv(Writer out) throws IOException {
+        int n = vectors.length;
+        StringBuilder line = new StringBuilder("文件名");
+        for (int i = 0; i < n; i++) {
+            line.append(',').append(csvField(name(i)));
+        }
+        out.write(line.append(System.lineSeparator()).toString());
+        compute((row, scores) -> {
+            line.setLength(0);
+            line.append(csvField(name(row)));
+            for (int column = 0; column <= row; column++) {
+                line.append(',');
+            }
+            for (double score : scores) {
+                // 与 calculateSimilarity 相同的两位小数舍入；固定用点作小数点，避免逗号小数点的区域设置破坏CSV列
+                line.append(',').append(String.format(Locale.ROOT, "%.2f", Math.round(score * 100) / 100.0));
+            }
+            out.write(line.append(System.lineSeparator()).toString());
+        });
+        out.flush();
+    }
+
+    /**
+     * 以紧凑二进制格式输出（格式见类注释）
+     */
+    public void writeBinary(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(BINARY_MAGIC);
+        data.writeInt(BINARY_VERSION);
+        data.writeInt(vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            data.writeUTF(name(i));
+        }
+        compute((row, scores) -> {
+            for (double score : scores) {
+                data.writeFloat((float) score);
+            }
+        });
+        data.flush();
+    }
+
+    // 含逗号、引号或换行的字段加引号，内部引号双写
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * 逐行接收上三角得分
+     */
+    @FunctionalInterface
+    public interface RowConsumer {
+        void accept(int row, double[] scores) throws IOException;
+    }
+}
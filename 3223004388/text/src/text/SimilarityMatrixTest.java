@@ -0,0 +1,99 @@
+package text;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static text.TextTestSupport.randomText;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Random;
+
+public class SimilarityMatrixTest {
+    private static final String CHARS = "人工智能数据挖掘深度学习框架模型神经网络医疗领域应用发展阶段";
+
+    private static CorpusIndex randomCorpus(int size) {
+        Random random = new Random(14);
+        CorpusIndex corpus = new CorpusIndex();
+        for (int i = 0; i < size; i++) {
+            corpus.add("doc" + i + ".txt", randomText(random, CHARS, 150));
+        }
+        return corpus;
+    }
+
+    // 分块并行计算的每个单元格与逐对打分一致，且按行顺序回调
+    @Test
+    public void testTiledScoresMatchPairwise() throws Exception {
+        CorpusIndex corpus = randomCorpus(23);
+        SimilarityMatrix matrix = new SimilarityMatrix(corpus, 5);
+        int[] nextRow = {0};
+        matrix.compute((row, scores) -> {
+            assertEquals(nextRow[0]++, row);
+            assertEquals(corpus.size() - row - 1, scores.length);
+            for (int k = 0; k < scores.length; k++) {
+                double expected = SimilarityCalculator.cosine(corpus.vector(row), corpus.vector(row + 1 + k));
+                assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(scores[k]));
+            }
+        });
+        assertEquals(corpus.size(), nextRow[0]);
+    }
+
+    @Test
+    public void testCsvShape() throws Exception {
+        CorpusIndex corpus = randomCorpus(4);
+        corpus.add("a,b.txt", "人工智能");
+        StringWriter out = new StringWriter();
+        new SimilarityMatrix(corpus, 2).writeCsv(out);
+        String[] lines = out.toString().split(System.lineSeparator());
+        assertEquals(6, lines.length);
+        assertTrue(lines[0].endsWith(",\"a,b.txt\""));
+        // 第一行数据：文件名、对角线留空、其余4个得分
+        assertEquals(6, lines[1].split(",", -1).length);
+        assertTrue(lines[1].startsWith("doc0.txt,,"));
+    }
+
+    // 得分与 calculateSimilarity 的舍入一致，且不受默认区域设置的小数点影响
+    @Test
+    public void testCsvScoresIgnoreLocale() throws Exception {
+        CorpusIndex corpus = randomCorpus(5);
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        StringWriter out = new StringWriter();
+        try {
+            new SimilarityMatrix(corpus).writeCsv(out);
+        } finally {
+            Locale.setDefault(previous);
+        }
+        String[] lines = out.toString().split(System.lineSeparator());
+        for (int row = 0; row < corpus.size(); row++) {
+            String[] cells = lines[row + 1].split(",", -1);
+            assertEquals(corpus.size() + 1, cells.length);
+            for (int column = row + 1; column < corpus.size(); column++) {
+                double expected = SimilarityCalculator.calculateSimilarity(corpus.vector(row), corpus.vector(column));
+                assertEquals(String.format(Locale.ROOT, "%.2f", expected), cells[column + 1]);
+            }
+        }
+    }
+
+    @Test
+    public void testBinaryLayout() throws Exception {
+        CorpusIndex corpus = randomCorpus(6);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new SimilarityMatrix(corpus).writeBinary(bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(SimilarityMatrix.BINARY_MAGIC, in.readInt());
+        assertEquals(SimilarityMatrix.BINARY_VERSION, in.readInt());
+        assertEquals(6, in.readInt());
+        for (int i = 0; i < 6; i++) {
+            assertEquals("doc" + i + ".txt", in.readUTF());
+        }
+        for (int i = 0; i < 6; i++) {
+            for (int j = i + 1; j < 6; j++) {
+                assertEquals((float) SimilarityCalculator.cosine(corpus.vector(i), corpus.vector(j)), in.readFloat(), 0f);
+            }
+        }
+        assertEquals(-1, in.read());
+    }
+}
@@ -0,0 +1,243 @@
+package text;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 常驻的查重HTTP服务，避免每次请求都启动一次JVM
+ * <p>
+ * POST /similarity，请求体为表单编码的 original=原文&amp;plagiarized=待检文本，
+ * 返回 {"similarity":0.74}。每个请求由一个虚拟线程处理（运行在不支持虚拟线程的JDK上时退回普通线程池）。
+ * <p>
+ * 微批处理：同一篇原文的并发请求在一个很短的时间窗口内合并成一批，
+ * 原文只分词一次，批内每篇待检文本在各自的请求线程上并行分词打分
+ */
+public class SimilarityServer {
+    public static final long DEFAULT_BATCH_WINDOW_MICROS = 2000;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    private static final int MAX_BODY_BYTES = 64 << 20;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+    // 原文 → 正在收集请求的批次
+    private final Map<String, Batch> openBatches = new ConcurrentHashMap<>();
+
+    public SimilarityServer(int port) throws IOException {
+        this(port, DEFAULT_BATCH_WINDOW_MICROS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param port 监听端口，0表示随机分配
+     * @param batchWindowMicros 批次创建后可以加入的时间窗口（微秒），0表示不合并
+     * @param maxBatchSize 单批最多共用原文向量的请求数，达到后关闭批次
+     */
+    public SimilarityServer(int port, long batchWindowMicros, int maxBatchSize) throws IOException {
+        if (batchWindowMicros < 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("批次窗口不能为负数，批次大小必须为正数");
+        }
+        this.batchWindowNanos = TimeUnit.MICROSECONDS.toNanos(batchWindowMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.executor = TaskExecutors.newPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/similarity", this::handleSimilarity);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * 停止服务，等待正在处理的请求最多delaySeconds秒
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * 实际监听的端口
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * 计算一对文本的相似度（保留两位小数），与同一原文的并发调用共用原文分词结果
+     */
+    public double similarity(String original, String plagiarized) throws InterruptedException {
+        while (true) {
+            Batch batch = openBatches.computeIfAbsent(original, Batch::new);
+            if (!batch.join()) {
+                // 批次刚被关闭，重新加入下一批
+                openBatches.remove(original, batch);
+                continue;
+            }
+            try {
+                return batch.score(plagiarized);
+            } finally {
+                batch.leave();
+            }
+        }
+    }
+
+    private void handleSimilarity(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "{\"error\":\"只支持POST\"}");
+                return;
+            }
+            Map<String, String> form = parseForm(readBody(exchange.getRequestBody()));
+            String original = form.get("original");
+            String plagiarized = form.get("plagiarized");
+            if (original == null || plagiarized == null) {
+                respond(exchange, 400, "{\"error\":\"缺少original或plagiarized参数\"}");
+                return;
+            }
+            double similarity = similarity(original, plagiarized);
+            respond(exchange, 200, String.format(Locale.ROOT, "{\"similarity\":%.2f}", similarity));
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, "{\"error\":\"请求格式错误\"}");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "{\"error\":\"服务正在停止\"}");
+        } catch (RuntimeException e) {
+            respond(exchange, 500, "{\"error\":\"计算失败\"}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            if (bytes.size() + read > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("请求体过大");
+            }
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解析 application/x-www-form-urlencoded 请求体
+     */
+    static Map<String, String> parseForm(String body) {
+        Map<String, String> form = new HashMap<>();
+        for (String pair : body.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            form.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return form;
+    }
+
+    /**
+     * 同一原文的一批请求：第一个加入的线程为原文分词，其他请求等待并共用原文向量，
+     * 各自在自己的线程上为待检文本分词并打分。批次在创建后的窗口内、且仍有请求在计算时可以加入，
+     * 最后一个请求完成或加入数达到上限时关闭；单独到达的请求不会为等待合并而延迟
+     */
+    private final class Batch {
+        final String original;
+        final long deadline = System.nanoTime() + batchWindowNanos;
+        final CompletableFuture<DocumentVector> originalVector = new CompletableFuture<>();
+        Thread leader;
+        int members;
+        int active;
+        boolean closed;
+
+        Batch(String original) {
+            this.original = original;
+        }
+
+        /**
+         * 加入批次，批次已关闭或窗口已过时返回false
+         */
+        synchronized boolean join() {
+            if (!closed && members > 0 && System.nanoTime() - deadline >= 0) {
+                close();
+            }
+            if (closed) {
+                return false;
+            }
+            if (members++ == 0) {
+                leader = Thread.currentThread();
+            }
+            active++;
+            if (members >= maxBatchSize) {
+                close();
+            }
+            return true;
+        }
+
+        /**
+         * 计算待检文本与原文的相似度：原文向量由第一个加入的线程构建，其余线程等待复用
+         */
+        double score(String plagiarized) throws InterruptedException {
+            SegmentCache cache = SimilarityCalculator.getSegmentCache();
+            DocumentVector vector;
+            if (leader == Thread.currentThread()) {
+                try {
+                    vector = cache == null ? DocumentVector.of(original) : cache.get(original);
+                } catch (RuntimeException e) {
+                    originalVector.completeExceptionally(e);
+                    throw e;
+                }
+                originalVector.complete(vector);
+            } else {
+                try {
+                    vector = originalVector.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+                }
+            }
+            DocumentVector plagiarizedVector = cache == null ? DocumentVector.of(plagiarized) : cache.get(plagiarized);
+            return SimilarityCalculator.calculateSimilarity(vector, plagiarizedVector);
+        }
+
+        synchronized void leave() {
+            if (--active == 0) {
+                close();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            openBatches.remove(original, this);
+        }
+    }
+}
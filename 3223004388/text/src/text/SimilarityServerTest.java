@@ -0,0 +1,118 @@
+package text;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class SimilarityServerTest {
+    private static final String ORIGINAL = "这是一篇原创论文，讨论人工智能在医疗领域的应用。";
+    private static final String[] PLAGIARIZED = {
+            "这是一篇抄袭论文，讨论人工智能在教育领域的应用。",
+            "人工智能在医疗领域的应用是本文讨论的内容。",
+            "今天天气很好，我们去公园散步。",
+    };
+
+    private SimilarityServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new SimilarityServer(0);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private String post(String body) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.port() + "/similarity").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        in.transferTo(bytes);
+        in.close();
+        return status + " " + bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String form(String original, String plagiarized) {
+        return "original=" + URLEncoder.encode(original, StandardCharsets.UTF_8)
+                + "&plagiarized=" + URLEncoder.encode(plagiarized, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testHttpMatchesCalculator() throws Exception {
+        double expected = SimilarityCalculator.calculateSimilarity(ORIGINAL, PLAGIARIZED[0]);
+        assertEquals(String.format(Locale.ROOT, "200 {\"similarity\":%.2f}", expected), post(form(ORIGINAL, PLAGIARIZED[0])));
+    }
+
+    @Test
+    public void testMissingParameter() throws Exception {
+        assertTrue(post("original=abc").startsWith("400 "));
+    }
+
+    // 同一原文的并发请求合并处理后，每个请求仍拿到自己的结果
+    @Test
+    public void testConcurrentRequestsShareBatch() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future<?>[48];
+            for (int i = 0; i < futures.length; i++) {
+                String text = PLAGIARIZED[i % PLAGIARIZED.length];
+                futures[i] = pool.submit(() -> {
+                    assertEquals(SimilarityCalculator.calculateSimilarity(ORIGINAL, text),
+                            server.similarity(ORIGINAL, text), 0.0);
+                    return null;
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // 单独到达的请求不等待批次窗口结束；窗口过后的请求开启新批次
+    @Test
+    public void testLoneRequestIsNotDelayed() throws Exception {
+        SimilarityServer slow = new SimilarityServer(0, 10_000_000, SimilarityServer.DEFAULT_MAX_BATCH_SIZE);
+        try {
+            long start = System.nanoTime();
+            for (String text : PLAGIARIZED) {
+                assertEquals(SimilarityCalculator.calculateSimilarity(ORIGINAL, text), slow.similarity(ORIGINAL, text), 0.0);
+            }
+            assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        } finally {
+            slow.stop(0);
+        }
+    }
+
+    @Test
+    public void testParseForm() {
+        Map<String, String> form = SimilarityServer.parseForm("a=1+2&b=%E4%BA%BA&c");
+        assertEquals("1 2", form.get("a"));
+        assertEquals("人", form.get("b"));
+        assertEquals("", form.get("c"));
+    }
+}
@@ -0,0 +1,120 @@
+package text;
+
+import java.util.Arrays;
+
+/**
+ * 按gram编码升序排列的稀疏词频向量：键和计数分别存放在 long[] 与 int[] 中
+ * <p>
+ * 两个向量的加权余弦由 {@link SimilarityCalculator#cosine(SparseGramVector, SparseGramVector)}
+ * 按键顺序扫描计算（大小悬殊时跳跃查找），不查哈希表、不分配对象，
+ * 适合同一批文档被反复比较的场景（如语料库检索）
+ */
+public final class SparseGramVector {
+    private static final SparseGramVector EMPTY = new SparseGramVector(new long[0], new int[0], 0);
+
+    private final long[] keys;
+    private final int[] counts;
+    private final long squaredNorm;
+
+    private SparseGramVector(long[] keys, int[] counts, long squaredNorm) {
+        this.keys = keys;
+        this.counts = counts;
+        this.squaredNorm = squaredNorm;
+    }
+
+    /**
+     * 由计数表构建（排序一次，之后可重复比较）
+     */
+    public static SparseGramVector of(GramCountMap map) {
+        if (map.isEmpty()) {
+            return EMPTY;
+        }
+        long[] keys = map.sortedKeys();
+        int[] counts = new int[keys.length];
+        long squaredNorm = 0;
+        for (int i = 0; i < keys.length; i++) {
+            int count = map.get(keys[i]);
+            counts[i] = count;
+            squaredNorm += (long) count * count;
+        }
+        return new SparseGramVector(keys, counts, squaredNorm);
+    }
+
+    /**
+     * 对文本预处理、分词并统计词频
+     */
+    public static SparseGramVector of(String text) {
+        return of(TextProcessor.buildGramFrequency(text));
+    }
+
+    /**
+     * 直接使用已排序的数组构建，调用方保证键严格升序且计数为正
+     */
+    static SparseGramVector wrap(long[] keys, int[] counts, long squaredNorm) {
+        return new SparseGramVector(keys, counts, squaredNorm);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    /**
+     * 未加权的计数平方和
+     */
+    public long squaredNorm() {
+        return squaredNorm;
+    }
+
+    /**
+     * 第index个gram编码（升序）
+     */
+    public long keyAt(int index) {
+        return keys[index];
+    }
+
+    public int countAt(int index) {
+        return counts[index];
+    }
+
+    /**
+     * 查询计数（二分查找），不存在时返回0
+     */
+    public int get(long gram) {
+        int index = Arrays.binarySearch(keys, gram);
+        return index >= 0 ? counts[index] : 0;
+    }
+
+    /**
+     * 转回计数表
+     */
+    public GramCountMap toCountMap() {
+        GramCountMap map = new GramCountMap(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            map.add(keys[i], counts[i]);
+        }
+        return map;
+    }
+
+    /**
+     * 升序键数组（内部数组，调用方不得修改）
+     */
+    long[] keys() {
+        return keys;
+    }
+
+    /**
+     * 与键一一对应的计数数组（内部数组，调用方不得修改）
+     */
+    int[] counts() {
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return "SparseGramVector{size=" + keys.length + ", squaredNorm=" + squaredNorm + "}";
+    }
+}
@@ -0,0 +1,50 @@
+package text;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static text.TextTestSupport.randomText;
+
+import java.util.Random;
+
+public class SparseGramVectorTest {
+    private static final String ALPHABET = "人工智能医疗教育论文研究方法数据模型abcde 12，。";
+
+    @Test
+    public void testKeysSortedAndCountsMatch() {
+        GramCountMap map = TextProcessor.buildGramFrequency("今天天气很好，我们去公园散步。今天天气很好");
+        SparseGramVector vector = SparseGramVector.of(map);
+        assertEquals(map.size(), vector.size());
+        assertEquals(map.sumOfSquares(), vector.squaredNorm());
+        for (int i = 0; i < vector.size(); i++) {
+            if (i > 0) {
+                assertTrue(vector.keyAt(i - 1) < vector.keyAt(i));
+            }
+            assertEquals(map.get(vector.keyAt(i)), vector.countAt(i));
+            assertEquals(vector.countAt(i), vector.get(vector.keyAt(i)));
+        }
+        assertEquals(0, vector.get(GramCodes.pack2('无', '关')));
+        assertEquals(map.size(), vector.toCountMap().size());
+    }
+
+    @Test
+    public void testMergeCosineMatchesHashCosine() {
+        Random random = new Random(13);
+        for (int round = 0; round < 200; round++) {
+            String text1 = randomText(random, ALPHABET, random.nextInt(400));
+            String text2 = randomText(random, ALPHABET, random.nextInt(400));
+            DocumentVector vector1 = DocumentVector.of(text1);
+            DocumentVector vector2 = DocumentVector.of(text2);
+            assertEquals(Double.doubleToLongBits(SimilarityCalculator.cosine(vector1, vector2)),
+                    Double.doubleToLongBits(SimilarityCalculator.cosine(vector1.sparse(), vector2.sparse())));
+        }
+    }
+
+    @Test
+    public void testEmptyVectors() {
+        SparseGramVector empty = SparseGramVector.of("");
+        SparseGramVector text = SparseGramVector.of("人工智能");
+        assertTrue(empty.isEmpty());
+        assertEquals(1.00, SimilarityCalculator.calculateSimilarity(empty, empty), 0.0);
+        assertEquals(0.00, SimilarityCalculator.calculateSimilarity(empty, text), 0.0);
+    }
+}
@@ -0,0 +1,196 @@
+package text;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 编译后的停用词过滤器
+ * 单字停用词存入按字符下标的位图（65536位），多字停用词编译为字典树，
+ * 判断一个gram是否含停用词只需常数次位运算和树上转移，与停用词表大小无关
+ */
+public class StopWordFilter {
+    /**
+     * 内置停用词表（过滤无意义词汇）
+     */
+    public static final StopWordFilter DEFAULT = of(Arrays.asList(
+            "的", "是", "在", "这", "为", "了", "与", "和", "并", "或", "一个", "用于"));
+
+    private static final int ROOT = 0;
+
+    // 单字停用词位图
+    private final long[] singleChars = new long[(Character.MAX_VALUE + 1) >>> 6];
+    // 字典树转移：键为 (状态+1)<<16 | 字符，值为子状态（复用long→int开放寻址表）
+    private final GramCountMap transitions = new GramCountMap();
+    // 以该状态结尾即为一个完整停用词
+    private boolean[] terminal = new boolean[16];
+    private int stateCount = 1;
+    private final int wordCount;
+    private final String digest;
+
+    private StopWordFilter(Collection<String> words) {
+        int count = 0;
+        TreeSet<String> distinct = new TreeSet<>();
+        for (String word : words) {
+            if (word == null || word.isEmpty()) {
+                continue;
+            }
+            count++;
+            distinct.add(word);
+            if (word.length() == 1) {
+                char c = word.charAt(0);
+                singleChars[c >>> 6] |= 1L << c;
+            } else {
+                addWord(word);
+            }
+        }
+        wordCount = count;
+        // 对去重排序后的词表做FNV-1a摘要，与词的给出顺序和重复无关
+        long h = 0xcbf29ce484222325L;
+        for (String word : distinct) {
+            for (int i = 0; i < word.length(); i++) {
+                h = (h ^ word.charAt(i)) * 0x100000001b3L;
+            }
+            h = (h ^ '\n') * 0x100000001b3L;
+        }
+        digest = Long.toHexString(MinHasher.mix(h));
+    }
+
+    /**
+     * 由停用词集合构建过滤器
+     */
+    public static StopWordFilter of(Collection<String> words) {
+        return new StopWordFilter(words);
+    }
+
+    /**
+     * 从文件加载停用词表（UTF-8，每行一个词，忽略空行和#开头的注释行）
+     */
+    public static StopWordFilter load(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            throw new FileNotFoundException("停用词表不存在: " + path);
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return of(readWords(reader));
+        }
+    }
+
+    /**
+     * 从类路径资源加载停用词表，格式同 {@link #load(Path)}
+     */
+    public static StopWordFilter fromResource(String resourceName) throws IOException {
+        InputStream in = StopWordFilter.class.getResourceAsStream(resourceName);
+        if (in == null) {
+            throw new FileNotFoundException("停用词资源不存在: " + resourceName);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return of(readWords(reader));
+        }
+    }
+
+    /**
+     * 判断窗口内的gram是否不含任何停用词
+     * @param text 字符数组
+     * @param start gram起始下标
+     * @param length gram长度
+     */
+    public boolean isValid(char[] text, int start, int length) {
+        int end = start + length;
+        for (int i = start; i < end; i++) {
+            char c = text[i];
+            if ((singleChars[c >>> 6] & (1L << c)) != 0) {
+                return false;
+            }
+        }
+        if (stateCount == 1) {
+            return true;
+        }
+        // 从每个起点沿字典树匹配，命中完整停用词即无效
+        for (int i = start; i < end - 1; i++) {
+            int state = ROOT;
+            for (int j = i; j < end; j++) {
+                state = next(state, text[j]);
+                if (state < 0) {
+                    break;
+                }
+                if (terminal[state]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 字符串版本，便于测试和兼容旧代码
+     */
+    public boolean isValid(CharSequence gram) {
+        char[] chars = new char[gram.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = gram.charAt(i);
+        }
+        return isValid(chars, 0, chars.length);
+    }
+
+    /**
+     * 停用词数量
+     */
+    public int size() {
+        return wordCount;
+    }
+
+    /**
+     * 词表摘要（十六进制）：词表内容相同的过滤器摘要相同，用于区分不同词表下的缓存结果
+     */
+    public String digest() {
+        return digest;
+    }
+
+    private int next(int state, char c) {
+        int child = transitions.get(transitionKey(state, c));
+        return child == 0 ? -1 : child;
+    }
+
+    private void addWord(String word) {
+        int state = ROOT;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            int child = next(state, c);
+            if (child < 0) {
+                child = stateCount++;
+                transitions.add(transitionKey(state, c), child);
+                if (child >= terminal.length) {
+                    terminal = Arrays.copyOf(terminal, terminal.length << 1);
+                }
+            }
+            state = child;
+        }
+        terminal[state] = true;
+    }
+
+    private static long transitionKey(int state, char c) {
+        return ((long) (state + 1) << 16) | c;
+    }
+
+    private static List<String> readWords(BufferedReader reader) throws IOException {
+        List<String> words = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String word = line.trim();
+            if (!word.isEmpty() && !word.startsWith("#")) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,80 @@
+package text;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class StopWordFilterTest {
+
+    // 内置词表：单字和多字停用词都能识别
+    @Test
+    public void testDefaultFilter() {
+        StopWordFilter filter = StopWordFilter.DEFAULT;
+        assertFalse(filter.isValid("的是"));
+        assertFalse(filter.isValid("人的"));
+        assertFalse(filter.isValid("一个人"));
+        assertFalse(filter.isValid("用于"));
+        assertTrue(filter.isValid("一人"));
+        assertTrue(filter.isValid("人工智"));
+    }
+
+    // 大词表：结果与逐词contains扫描一致
+    @Test
+    public void testLargeListMatchesLinearScan() {
+        Random random = new Random(3);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int length = 1 + random.nextInt(3);
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < length; j++) {
+                sb.append((char) (0x4e00 + random.nextInt(300)));
+            }
+            words.add(sb.toString());
+        }
+        StopWordFilter filter = StopWordFilter.of(words);
+        for (int round = 0; round < 20000; round++) {
+            int length = 2 + random.nextInt(2);
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < length; j++) {
+                sb.append((char) (0x4e00 + random.nextInt(300)));
+            }
+            String gram = sb.toString();
+            boolean expected = true;
+            for (String word : words) {
+                if (gram.contains(word)) {
+                    expected = false;
+                    break;
+                }
+            }
+            assertEquals(gram, expected, filter.isValid(gram));
+        }
+    }
+
+    // 从文件加载，忽略注释和空行
+    @Test
+    public void testLoadFromPath() throws Exception {
+        Path file = Files.createTempFile("stopwords", ".txt");
+        try {
+            Files.write(file, "# 注释\n\n论文\n 之 \n".getBytes(StandardCharsets.UTF_8));
+            StopWordFilter filter = StopWordFilter.load(file);
+            assertEquals(2, filter.size());
+            assertFalse(filter.isValid("论文集"));
+            assertFalse(filter.isValid("之后"));
+            assertTrue(filter.isValid("的是"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void testLoadMissingResource() throws Exception {
+        StopWordFilter.fromResource("/non_exist_stopwords.txt");
+    }
+}
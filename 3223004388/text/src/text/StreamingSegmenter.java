@@ -0,0 +1,173 @@
+package text;
+
+import java.nio.CharBuffer;
+
+/**
+ * 流式分词器：逐块接收原始字符，边规范化边生成gram编码
+ * 在块与块之间保留最近两个字符，因此跨块边界的2-gram/3-gram既不会丢失也不会重复
+ * <p>
+ * 分词只关心连续的保留字符，空格合并与首尾去空格不影响结果，
+ * 因此这里无需缓存整篇规范化文本，输出与 {@link TextProcessor#segment(String, GramSink)} 完全一致
+ */
+public class StreamingSegmenter {
+    private final GramSink sink;
+    private final StopWordFilter filter;
+    // 最近三个保留字符，window[2]为最新
+    private final char[] window = new char[3];
+    // 当前连续保留字符数
+    private int run;
+    private long charCount;
+    private long gramCount;
+    // 开启分阶段统计后非空：逐块先规范化再分词，两段耗时分别累计
+    private PipelineMetrics.Span preprocess;
+    private PipelineMetrics.Span segment;
+    private PipelineMetrics.Span frequency;
+    private char[] normalized;
+
+    public StreamingSegmenter(GramSink sink) {
+        this(sink, TextProcessor.getStopWordFilter());
+    }
+
+    public StreamingSegmenter(GramSink sink, StopWordFilter filter) {
+        this.sink = sink;
+        this.filter = filter;
+    }
+
+    /**
+     * 接收一段原始字符
+     */
+    public void feed(char[] text, int offset, int length) {
+        if (preprocess != null) {
+            feedMeasured(text, offset, length);
+        } else {
+            for (int i = offset, end = offset + length; i < end; i++) {
+                accept(text[i]);
+            }
+        }
+        charCount += length;
+    }
+
+    /**
+     * 接收缓冲区中剩余的全部字符（读取后缓冲区位置移到末尾）
+     */
+    public void feed(CharBuffer buffer) {
+        if (buffer.hasArray()) {
+            int length = buffer.remaining();
+            feed(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            buffer.position(buffer.limit());
+        } else {
+            long length = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                accept(buffer.get());
+            }
+            charCount += length;
+        }
+    }
+
+    /**
+     * 接收字符序列中的 [start, end) 段
+     */
+    public void feed(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            accept(text.charAt(i), true);
+        }
+        charCount += end - start;
+    }
+
+    /**
+     * 接收分块边界之后的至多两个重叠字符，只补齐起点仍在本块内的gram：
+     * 第一个重叠字符补齐2-gram和3-gram，第二个只补齐3-gram
+     * 下一块从边界处重新开始计数，因此跨边界的gram恰好统计一次
+     */
+    void feedOverlap(CharSequence text, int boundary, int end) {
+        int limit = Math.min(end, boundary + 2);
+        for (int i = boundary; i < limit; i++) {
+            accept(text.charAt(i), i == boundary);
+        }
+        charCount += limit - boundary;
+    }
+
+    /**
+     * 已接收的原始字符数
+     */
+    public long charCount() {
+        return charCount;
+    }
+
+    /**
+     * 统计开启时（{@link PipelineMetrics#isEnabled()}）分别累计预处理、分词和词频统计的耗时，
+     * 输入结束后由 {@link #recordStages(long)} 各记为一次调用；统计关闭时什么都不做
+     * 开启后每块字符先整体规范化再分词，结果与逐字符处理相同
+     */
+    void measureStages() {
+        if (!PipelineMetrics.isEnabled()) {
+            return;
+        }
+        preprocess = PipelineMetrics.span(PipelineMetrics.Stage.PREPROCESS);
+        segment = PipelineMetrics.span(PipelineMetrics.Stage.SEGMENT);
+        frequency = PipelineMetrics.span(PipelineMetrics.Stage.BUILD_FREQUENCY);
+        normalized = new char[0];
+    }
+
+    /**
+     * 记录 {@link #measureStages()} 之后累计的各阶段统计；sink为词频表时，
+     * 词频统计阶段即处理字符的全部耗时（不含读取），处理量为不同gram数
+     * @param distinctGrams 词频表中的不同gram数
+     */
+    void recordStages(long distinctGrams) {
+        if (preprocess == null) {
+            return;
+        }
+        preprocess.record();
+        segment.record();
+        frequency.addUnits(distinctGrams);
+        frequency.record();
+    }
+
+    private void feedMeasured(char[] text, int offset, int length) {
+        frequency.resume();
+        preprocess.resume();
+        if (normalized.length < length) {
+            normalized = new char[Math.max(length, normalized.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            normalized[i] = TextNormalizer.normalizeChar(text[offset + i]);
+        }
+        preprocess.pause(length);
+        segment.resume();
+        long before = gramCount;
+        for (int i = 0; i < length; i++) {
+            acceptNormalized(normalized[i], true);
+        }
+        segment.pause(gramCount - before);
+        frequency.pause(0);
+    }
+
+    private void accept(char raw) {
+        accept(raw, true);
+    }
+
+    private void accept(char raw, boolean emitBigram) {
+        acceptNormalized(TextNormalizer.normalizeChar(raw), emitBigram);
+    }
+
+    private void acceptNormalized(char c, boolean emitBigram) {
+        if (c == ' ') {
+            run = 0;
+            return;
+        }
+        window[0] = window[1];
+        window[1] = window[2];
+        window[2] = c;
+        run++;
+        // 过滤含停用词的gram
+        if (emitBigram && run >= 2 && filter.isValid(window, 1, 2)) {
+            sink.accept(GramCodes.pack2(window[1], c));
+            gramCount++;
+        }
+        if (run >= 3 && filter.isValid(window, 0, 3)) {
+            sink.accept(GramCodes.pack3(window[0], window[1], c));
+            gramCount++;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 后缀自动机：为原文线性时间构建，随后让抄袭版逐字符在自动机上转移，
+ * 得到抄袭版每个位置结尾的最长公共子串，总耗时 O(n + m)
+ * <p>
+ * 转移边存放在平行数组中并按状态串成链表（克隆状态时需要复制出边），
+ * 另用 {@link GramCountMap} 以 (状态, 字符) 为键直接定位边，查找为O(1)
+ */
+public class SuffixAutomaton {
+    public static final int DEFAULT_MIN_LENGTH = 12;
+
+    private final int[] length;
+    private final int[] link;
+    // 状态所代表子串在原文中某次出现的结束位置
+    private final int[] firstEnd;
+    private final int[] firstEdge;
+    private int stateCount;
+
+    private final char[] edgeChar;
+    private final int[] edgeTarget;
+    private final int[] edgeNext;
+    private int edgeCount;
+    // (状态+1)<<16 | 字符 → 边编号+1
+    private final GramCountMap edgeIndex;
+
+    private int last;
+
+    /**
+     * 为 text[0, count) 构建自动机
+     */
+    public SuffixAutomaton(char[] text, int count) {
+        // n个字符的后缀自动机最多 2n-1 个状态、3n-4 条边
+        int maxStates = Math.max(2, 2 * count);
+        int maxEdges = Math.max(4, 3 * count);
+        length = new int[maxStates];
+        link = new int[maxStates];
+        firstEnd = new int[maxStates];
+        firstEdge = new int[maxStates];
+        edgeChar = new char[maxEdges];
+        edgeTarget = new int[maxEdges];
+        edgeNext = new int[maxEdges];
+        edgeIndex = new GramCountMap(maxEdges);
+        Arrays.fill(firstEdge, -1);
+        link[0] = -1;
+        stateCount = 1;
+        for (int i = 0; i < count; i++) {
+            extend(text[i], i);
+        }
+    }
+
+    public SuffixAutomaton(CharSequence text) {
+        this(text.toString().toCharArray(), text.length());
+    }
+
+    /**
+     * 状态数
+     */
+    public int size() {
+        return stateCount;
+    }
+
+    /**
+     * 原文是否包含该子串
+     */
+    public boolean contains(CharSequence pattern) {
+        int state = 0;
+        for (int i = 0; i < pattern.length() && state >= 0; i++) {
+            state = transition(state, pattern.charAt(i));
+        }
+        return state >= 0;
+    }
+
+    /**
+     * 沿字符c转移到的状态，不存在时返回-1
+     */
+    int transition(int state, char c) {
+        int edge = edge(state, c);
+        return edge < 0 ? -1 : edgeTarget[edge];
+    }
+
+    /**
+     * 找出两篇文本的全部共同片段（规范化后不少于minLength个有效字符），按在抄袭版中的位置排序
+     * 对抄袭版的每个位置求以它结尾的最长公共子串，只在无法继续向右延伸时输出，保证每段都是极大的
+     */
+    public static List<CopiedPassage> commonPassages(String original, String plagiarized, int minLength) {
+        TextNormalizer originalText = new TextNormalizer();
+        int n = originalText.normalizeWithOffsets(original);
+        SuffixAutomaton automaton = new SuffixAutomaton(originalText.buffer(), n);
+        int[] originalOffsets = originalText.offsets();
+
+        TextNormalizer plagiarizedText = new TextNormalizer();
+        int m = plagiarizedText.normalizeWithOffsets(plagiarized);
+        char[] b = plagiarizedText.buffer();
+        int[] plagiarizedOffsets = plagiarizedText.offsets();
+
+        List<CopiedPassage> passages = new ArrayList<>();
+        int state = 0;
+        int matched = 0;
+        for (int i = 0; i < m; i++) {
+            char c = b[i];
+            while (state != 0 && automaton.edge(state, c) < 0) {
+                state = automaton.link[state];
+                matched = automaton.length[state];
+            }
+            int next = automaton.transition(state, c);
+            if (next >= 0) {
+                state = next;
+                matched++;
+            } else {
+                state = 0;
+                matched = 0;
+            }
+            // 下一个字符能接上时当前片段不是极大的，留给后面的位置输出
+            boolean extendable = i + 1 < m && automaton.transition(state, b[i + 1]) >= 0;
+            if (extendable || matched == 0) {
+                continue;
+            }
+            // 去掉首尾空格（两侧内容相同，同步调整）
+            int endB = i + 1;
+            int startB = endB - matched;
+            int endA = automaton.firstEnd[state] + 1;
+            while (startB < endB && b[startB] == ' ') {
+                startB++;
+            }
+            while (endB > startB && b[endB - 1] == ' ') {
+                endB--;
+                endA--;
+            }
+            int startA = endA - (endB - startB);
+            int effective = 0;
+            for (int p = startB; p < endB; p++) {
+                effective += b[p] == ' ' ? 0 : 1;
+            }
+            if (effective > 0 && effective >= minLength) {
+                passages.add(new CopiedPassage(
+                        originalOffsets[startA], originalOffsets[endA - 1] + 1,
+                        plagiarizedOffsets[startB], plagiarizedOffsets[endB - 1] + 1,
+                        effective));
+            }
+        }
+        Collections.sort(passages);
+        return passages;
+    }
+
+    private void extend(char c, int position) {
+        int current = stateCount++;
+        length[current] = length[last] + 1;
+        firstEnd[current] = position;
+        int p = last;
+        while (p != -1 && edge(p, c) < 0) {
+            addEdge(p, c, current);
+            p = link[p];
+        }
+        if (p == -1) {
+            link[current] = 0;
+        } else {
+            int q = edgeTarget[edge(p, c)];
+            if (length[p] + 1 == length[q]) {
+                link[current] = q;
+            } else {
+                // 拆分状态q：克隆出长度为 length[p]+1 的新状态，复制q的出边
+                int clone = stateCount++;
+                length[clone] = length[p] + 1;
+                link[clone] = link[q];
+                firstEnd[clone] = firstEnd[q];
+                for (int e = firstEdge[q]; e >= 0; e = edgeNext[e]) {
+                    addEdge(clone, edgeChar[e], edgeTarget[e]);
+                }
+                while (p != -1) {
+                    int e = edge(p, c);
+                    if (e < 0 || edgeTarget[e] != q) {
+                        break;
+                    }
+                    edgeTarget[e] = clone;
+                    p = link[p];
+                }
+                link[q] = clone;
+                link[current] = clone;
+            }
+        }
+        last = current;
+    }
+
+    private int edge(int state, char c) {
+        return edgeIndex.get(edgeKey(state, c)) - 1;
+    }
+
+    private void addEdge(int state, char c, int target) {
+        int e = edgeCount++;
+        edgeChar[e] = c;
+        edgeTarget[e] = target;
+        edgeNext[e] = firstEdge[state];
+        firstEdge[state] = e;
+        edgeIndex.put(edgeKey(state, c), e + 1);
+    }
+
+    private static long edgeKey(int state, char c) {
+        return ((long) (state + 1) << 16) | c;
+    }
+}
@@ -0,0 +1,77 @@
+package text;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static text.TextTestSupport.randomText;
+
+import java.util.List;
+import java.util.Random;
+
+public class SuffixAutomatonTest {
+    // 小字母表随机串：自动机接受的恰好是全部子串
+    @Test
+    public void testAcceptsExactlySubstrings() {
+        Random random = new Random(17);
+        for (int round = 0; round < 200; round++) {
+            String text = randomText(random, "abc", random.nextInt(30));
+            SuffixAutomaton automaton = new SuffixAutomaton(text);
+            assertTrue(automaton.size() <= Math.max(2, 2 * text.length()));
+            for (int probe = 0; probe < 50; probe++) {
+                String pattern = randomText(random, "abc", 1 + random.nextInt(6));
+                assertEquals(text.contains(pattern), automaton.contains(pattern));
+            }
+        }
+    }
+
+    // 最长的片段与暴力求得的最长公共子串等长，且每个片段两侧内容一致
+    @Test
+    public void testPassagesMatchBruteForce() {
+        Random random = new Random(18);
+        for (int round = 0; round < 200; round++) {
+            String original = randomText(random, "人工智能 数据", 5 + random.nextInt(60));
+            String plagiarized = randomText(random, "人工智能 数据", 5 + random.nextInt(60));
+            List<CopiedPassage> passages = SuffixAutomaton.commonPassages(original, plagiarized, 1);
+            int longest = 0;
+            for (CopiedPassage passage : passages) {
+                String a = original.substring(passage.originalStart(), passage.originalEnd());
+                String b = plagiarized.substring(passage.plagiarizedStart(), passage.plagiarizedEnd());
+                assertEquals(TextProcessor.preprocess(a), TextProcessor.preprocess(b));
+                assertEquals(TextProcessor.preprocess(b).replace(" ", "").length(), passage.length());
+                longest = Math.max(longest, passage.length());
+            }
+            assertEquals(longestCommonSubstring(TextProcessor.preprocess(original), TextProcessor.preprocess(plagiarized)),
+                    longest);
+        }
+    }
+
+    @Test
+    public void testFindsEmbeddedPassage() {
+        Random random = new Random(19);
+        String copied = "本文提出了一种基于深度学习的医疗影像分析方法，显著提高了诊断准确率。";
+        String original = randomText(random, "甲乙丙丁", 500) + copied + randomText(random, "甲乙丙丁", 500);
+        String plagiarized = randomText(random, "子丑寅卯", 200) + copied + randomText(random, "子丑寅卯", 200);
+        List<CopiedPassage> passages = SuffixAutomaton.commonPassages(original, plagiarized, SuffixAutomaton.DEFAULT_MIN_LENGTH);
+        assertEquals(1, passages.size());
+        CopiedPassage passage = passages.get(0);
+        assertEquals(500, passage.originalStart());
+        assertEquals(200, passage.plagiarizedStart());
+        assertEquals(copied.substring(0, copied.length() - 1),
+                plagiarized.substring(passage.plagiarizedStart(), passage.plagiarizedEnd()));
+    }
+
+    // 修剪首尾空格后的长度，与片段的统计口径一致（空格不计入）
+    private static int longestCommonSubstring(String a, String b) {
+        int best = 0;
+        for (int i = 0; i < a.length(); i++) {
+            for (int j = 0; j < b.length(); j++) {
+                int k = 0;
+                while (i + k < a.length() && j + k < b.length() && a.charAt(i + k) == b.charAt(j + k)) {
+                    k++;
+                }
+                String common = a.substring(i, i + k).trim();
+                best = Math.max(best, common.replace(" ", "").length());
+            }
+        }
+        return best;
+    }
+}
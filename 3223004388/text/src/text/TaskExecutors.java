@@ -0,0 +1,25 @@
+package text;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 查重服务和批量扫描共用的线程池工厂
+ */
+final class TaskExecutors {
+    private TaskExecutors() {
+    }
+
+    /**
+     * 每个任务一个虚拟线程（JDK 21+）；更早的JDK上退回按需创建的线程池
+     */
+    static ExecutorService newPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
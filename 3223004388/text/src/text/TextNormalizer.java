@@ -0,0 +1,230 @@
+package text;
+
+import java.util.Arrays;
+
+/**
+ * 单遍文本规范化器，语义与原先的正则链完全一致：
+ * 1. 保留中英文（一-龥）、数字、英文连接符（'），其余字符视为空格
+ * 2. 英文转小写
+ * 3. 合并连续空格并去掉首尾空格
+ * 结果写入可复用的内部缓冲区，处理过程不产生中间字符串
+ * <p>
+ * JVM启动时加了 --add-modules jdk.incubator.vector 时，较长的文本改用 {@link VectorizedNormalizer}
+ * 按SIMD宽度成组分类，结果与逐字符实现完全一致；系统属性 text.normalizer=scalar 可强制使用逐字符实现
+ */
+public class TextNormalizer {
+    private static final boolean VECTOR_AVAILABLE = detectVector();
+    // 短于该长度的文本逐字符处理即可
+    private static final int VECTOR_MIN_CHARS = 64;
+    // 向量路径把String分块复制到字符数组中处理
+    private static final int CHUNK_CHARS = 4096;
+
+    private final VectorizedNormalizer vector;
+    private char[] chunk;
+    private char[] buffer;
+    private int length;
+    // 输出字符在原文中的下标，仅由 normalizeWithOffsets 维护
+    private int[] offsets = new int[0];
+
+    public TextNormalizer() {
+        this(256);
+    }
+
+    public TextNormalizer(int initialCapacity) {
+        this(initialCapacity, true);
+    }
+
+    /**
+     * @param vectorized 是否在向量API可用时使用SIMD实现（为false时总是逐字符处理，供对比测试）
+     */
+    public TextNormalizer(int initialCapacity, boolean vectorized) {
+        buffer = new char[Math.max(initialCapacity, 16)];
+        vector = vectorized && VECTOR_AVAILABLE ? new VectorizedNormalizer() : null;
+    }
+
+    /**
+     * 当前JVM是否可以使用SIMD实现
+     */
+    public static boolean isVectorAvailable() {
+        return VECTOR_AVAILABLE;
+    }
+
+    public boolean isVectorized() {
+        return vector != null;
+    }
+
+    // 向量模块未加入模块图、平台向量过窄或被系统属性关闭时使用逐字符实现
+    private static boolean detectVector() {
+        if ("scalar".equals(System.getProperty("text.normalizer"))
+                || !ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            return false;
+        }
+        try {
+            return VectorizedNormalizer.isSupported();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * 规范化单个字符
+     * @return 保留字符（英文已转小写），不保留的字符返回空格
+     */
+    public static char normalizeChar(char c) {
+        if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c >= '一' && c <= '龥' || c == '\'') {
+            return c;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        return ' ';
+    }
+
+    /**
+     * 规范化文本
+     * @return 结果长度，内容通过 {@link #buffer()} 读取
+     */
+    public int normalize(CharSequence text) {
+        length = 0;
+        if (text == null) {
+            return 0;
+        }
+        int n = text.length();
+        ensureCapacity(n);
+        if (vector != null && n >= VECTOR_MIN_CHARS && text instanceof String) {
+            return normalizeVectorized((String) text, n);
+        }
+        char[] out = buffer;
+        int pos = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < n; i++) {
+            char c = normalizeChar(text.charAt(i));
+            if (c == ' ') {
+                // 仅在已有输出时记录空格，保证不产生前导空格
+                pendingSpace = pos > 0;
+            } else {
+                if (pendingSpace) {
+                    out[pos++] = ' ';
+                    pendingSpace = false;
+                }
+                out[pos++] = c;
+            }
+        }
+        length = pos;
+        return pos;
+    }
+
+    /**
+     * 规范化字符数组中的一段
+     */
+    public int normalize(char[] text, int offset, int count) {
+        length = 0;
+        ensureCapacity(count);
+        if (vector != null && count >= VECTOR_MIN_CHARS) {
+            vector.reset();
+            vector.append(text, offset, count, buffer);
+            length = vector.position();
+            return length;
+        }
+        char[] out = buffer;
+        int pos = 0;
+        boolean pendingSpace = false;
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            char c = normalizeChar(text[i]);
+            if (c == ' ') {
+                pendingSpace = pos > 0;
+            } else {
+                if (pendingSpace) {
+                    out[pos++] = ' ';
+                    pendingSpace = false;
+                }
+                out[pos++] = c;
+            }
+        }
+        length = pos;
+        return pos;
+    }
+
+    private int normalizeVectorized(String text, int n) {
+        if (chunk == null) {
+            chunk = new char[CHUNK_CHARS];
+        }
+        vector.reset();
+        for (int start = 0; start < n; start += CHUNK_CHARS) {
+            int count = Math.min(CHUNK_CHARS, n - start);
+            text.getChars(start, start + count, chunk, 0);
+            vector.append(chunk, 0, count, buffer);
+        }
+        length = vector.position();
+        return length;
+    }
+
+    /**
+     * 规范化文本，同时记录每个输出字符在原文中的下标（供证据片段映射回原文位置）
+     * 合并出的空格记为被替换的第一个原文字符的下标
+     * @return 结果长度，下标通过 {@link #offsets()} 读取
+     */
+    public int normalizeWithOffsets(CharSequence text) {
+        length = 0;
+        if (text == null) {
+            return 0;
+        }
+        int n = text.length();
+        ensureCapacity(n);
+        if (offsets.length < buffer.length) {
+            offsets = new int[buffer.length];
+        }
+        char[] out = buffer;
+        int[] from = offsets;
+        int pos = 0;
+        int pendingSpace = -1; // 待输出空格对应的原文下标
+        for (int i = 0; i < n; i++) {
+            char c = normalizeChar(text.charAt(i));
+            if (c == ' ') {
+                if (pos > 0 && pendingSpace < 0) {
+                    pendingSpace = i;
+                }
+            } else {
+                if (pendingSpace >= 0) {
+                    from[pos] = pendingSpace;
+                    out[pos++] = ' ';
+                    pendingSpace = -1;
+                }
+                from[pos] = i;
+                out[pos++] = c;
+            }
+        }
+        length = pos;
+        return pos;
+    }
+
+    /**
+     * 最近一次 {@link #normalizeWithOffsets(CharSequence)} 的原文下标（有效内容为前 {@link #length()} 个）
+     */
+    public int[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * 内部缓冲区（有效内容为前 {@link #length()} 个字符），下一次规范化会覆盖
+     */
+    public char[] buffer() {
+        return buffer;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer.length < capacity) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length << 1));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package text;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+public class TextNormalizerTest {
+    // 原正则链实现，作为差分测试的参照
+    private static String regexPreprocess(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String processed = text.replaceAll("[^a-zA-Z0-9一-龥'\\s]", " ");
+        processed = processed.toLowerCase();
+        return processed.replaceAll("\\s+", " ").trim();
+    }
+
+    private static final String ALPHABET = "的是人工智能AaZz09'  \t\n\r\u000B\f，。！？()-_　一龥龦䷿"
+            + "😀éÄ";
+
+    // 随机字符串差分：单遍实现与正则实现输出一致
+    @Test
+    public void testMatchesRegexOnRandomText() {
+        Random random = new Random(7);
+        TextNormalizer normalizer = new TextNormalizer(4);
+        for (int round = 0; round < 20000; round++) {
+            int length = random.nextInt(40);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            String text = sb.toString();
+            normalizer.normalize(text);
+            assertEquals(text, regexPreprocess(text), normalizer.toString());
+            assertEquals(text, regexPreprocess(text), TextProcessor.preprocess(text));
+        }
+    }
+
+    // 样本论文差分
+    @Test
+    public void testMatchesRegexOnSampleText() {
+        String text = "AI（人工智能）的发展始于1956年的Dartmouth会议。\n\t  It's   a  TEST!  ";
+        assertEquals(regexPreprocess(text), TextProcessor.preprocess(text));
+        char[] chars = text.toCharArray();
+        TextNormalizer normalizer = new TextNormalizer();
+        int length = normalizer.normalize(chars, 0, chars.length);
+        assertEquals(regexPreprocess(text), new String(normalizer.buffer(), 0, length));
+    }
+
+    // 空输入
+    @Test
+    public void testEmptyInput() {
+        assertEquals("", TextProcessor.preprocess(null));
+        assertEquals("", TextProcessor.preprocess(""));
+        assertEquals("", TextProcessor.preprocess("，。 \n"));
+    }
+
+    // 带下标的规范化：输出相同，且每个非空格字符都能映射回原文中的对应字符
+    @Test
+    public void testOffsetsMapBackToSource() {
+        Random random = new Random(16);
+        TextNormalizer normalizer = new TextNormalizer(4);
+        for (int round = 0; round < 5000; round++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = random.nextInt(40); i > 0; i--) {
+                sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            String text = sb.toString();
+            int length = normalizer.normalizeWithOffsets(text);
+            assertEquals(text, regexPreprocess(text), normalizer.toString());
+            int[] offsets = normalizer.offsets();
+            for (int i = 0; i < length; i++) {
+                char c = normalizer.buffer()[i];
+                if (i > 0) {
+                    assertTrue(offsets[i - 1] < offsets[i]);
+                }
+                if (c != ' ') {
+                    assertEquals(c, TextNormalizer.normalizeChar(text.charAt(offsets[i])));
+                }
+            }
+        }
+    }
+
+    // SIMD实现与逐字符实现差分：随机长文本中混有整段保留字符和整段分隔符，覆盖整块、混合块、
+    // 不足一组的尾部以及String分块复制的边界（未加入向量模块时两侧都是逐字符实现）
+    @Test
+    public void testVectorizedMatchesScalar() {
+        Random random = new Random(22);
+        TextNormalizer vectorized = new TextNormalizer(4, true);
+        TextNormalizer scalar = new TextNormalizer(4, false);
+        assertFalse(scalar.isVectorized());
+        assertEquals(TextNormalizer.isVectorAvailable(), vectorized.isVectorized());
+        String[] runs = {"abcdefghijklmnopqrstuvwxyz", "人工智能的发展分为三个阶段", "ABCDEFGHIJKLMNOPQRSTUVWXYZ",
+                "，。！？　\t\n（）", "It's 2024", "😀éÄ龦䷿"};
+        for (int round = 0; round < 3000; round++) {
+            StringBuilder sb = new StringBuilder();
+            int target = round % 100 == 0 ? 9000 : random.nextInt(600);
+            while (sb.length() < target) {
+                if (random.nextBoolean()) {
+                    String run = runs[random.nextInt(runs.length)];
+                    for (int k = random.nextInt(4); k >= 0; k--) {
+                        sb.append(run);
+                    }
+                } else {
+                    sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                }
+            }
+            String text = sb.toString();
+            int expected = scalar.normalize(text);
+            assertEquals(expected, vectorized.normalize(text));
+            assertEquals(text, scalar.toString(), vectorized.toString());
+
+            char[] chars = ("前缀" + text).toCharArray();
+            int length = vectorized.normalize(chars, 2, text.length());
+            assertEquals(expected, length);
+            assertEquals(scalar.toString(), new String(vectorized.buffer(), 0, length));
+        }
+    }
+}
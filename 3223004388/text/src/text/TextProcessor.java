@@ -1,82 +1,170 @@
-package text;
-
-import java.util.*;
-
-public class TextProcessor {
-    // 停用词表（过滤无意义词汇）
-    private static final Set<String> STOP_WORDS = new HashSet<>();
-    static {
-        STOP_WORDS.addAll(Arrays.asList("的", "是", "在", "这", "为", "了", "与", "和", "并", "或", "一个", "用于"));
-    }
-
-    /**
-     * 增强版文本预处理：保留英文单词和数字的完整性
-     */
-    public static String preprocess(String text) {
-        if (text == null || text.isEmpty()) {
-            return "";
-        }
-        // 1. 保留中英文、数字、英文单词连接符（'）和空格，其他字符替换为空格
-        String processed = text.replaceAll("[^a-zA-Z0-9\u4e00-\u9fa5'\\s]", " ");
-        // 2. 英文转小写
-        processed = processed.toLowerCase();
-        // 3. 合并连续空格
-        return processed.replaceAll("\\s+", " ").trim();
-    }
-
-    /**
-     * 混合n-gram分词（2-gram + 3-gram）：增强长序列匹配
-     */
-    public static List<String> segment(String text) {
-        List<String> grams = new ArrayList<>();
-        String processed = preprocess(text);
-        if (processed.isEmpty()) {
-            return grams;
-        }
-
-        // 1. 生成2-gram
-        for (int i = 0; i < processed.length() - 1; i++) {
-            String gram = processed.substring(i, i + 2);
-            if (isValidGram(gram)) {
-                grams.add(gram);
-            }
-        }
-
-        // 2. 生成3-gram（增强长序列匹配）
-        for (int i = 0; i < processed.length() - 2; i++) {
-            String gram = processed.substring(i, i + 3);
-            if (isValidGram(gram)) {
-                grams.add(gram);
-            }
-        }
-
-        return grams;
-    }
-
-    /**
-     * 过滤无效gram（含停用词或纯空格）
-     */
-    private static boolean isValidGram(String gram) {
-        if (gram.contains(" ")) {
-            return false; // 过滤含空格的gram
-        }
-        // 检查gram是否包含停用词（如gram为"的是"，其中"的"是停用词）
-        for (String stopWord : STOP_WORDS) {
-            if (gram.contains(stopWord)) {
-                return false;
-            }
-        }
-        return true;
-    }
-
-    /**
-     * 词频统计（保持不变）
-     */
-    public static Map<String, Integer> buildWordFrequency(List<String> words) {
-        Map<String, Integer> frequency = new HashMap<>();
-        for (String word : words) {
-            frequency.put(word, frequency.getOrDefault(word, 0) + 1);
-        }
-        return frequency;
-    }
-}
+package text;
+
+import java.util.*;
+
+public class TextProcessor {
+    // 停用词过滤器（过滤无意义词汇），可替换为从文件加载的词表
+    private static volatile StopWordFilter stopWordFilter = StopWordFilter.DEFAULT;
+    // 每个线程复用一个规范化缓冲区，避免每次调用重新分配
+    private static final ThreadLocal<TextNormalizer> NORMALIZER = ThreadLocal.withInitial(TextNormalizer::new);
+    // 分词策略，默认为字符2-gram + 3-gram
+    private static volatile Segmenter segmenter = CharNGramSegmenter.INSTANCE;
+
+    /**
+     * 替换全局停用词过滤器
+     */
+    public static void setStopWordFilter(StopWordFilter filter) {
+        stopWordFilter = Objects.requireNonNull(filter, "filter");
+    }
+
+    public static StopWordFilter getStopWordFilter() {
+        return stopWordFilter;
+    }
+
+    /**
+     * 替换全局分词策略
+     */
+    public static void setSegmenter(Segmenter segmenter) {
+        TextProcessor.segmenter = Objects.requireNonNull(segmenter, "segmenter");
+    }
+
+    public static Segmenter getSegmenter() {
+        return segmenter;
+    }
+
+    /**
+     * 当前是否为默认的字符n-gram策略（流式、并行和增量等专门实现只适用于该策略）
+     */
+    public static boolean usesCharNGrams() {
+        return segmenter == CharNGramSegmenter.INSTANCE;
+    }
+
+    /**
+     * 增强版文本预处理：保留英文单词和数字的完整性
+     * 单遍扫描完成字符过滤、小写转换和空格合并，语义与原正则实现一致
+     */
+    public static String preprocess(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        long start = PipelineMetrics.start(PipelineMetrics.Stage.PREPROCESS);
+        TextNormalizer normalizer = NORMALIZER.get();
+        normalizer.normalize(text);
+        String result = normalizer.toString();
+        PipelineMetrics.stop(PipelineMetrics.Stage.PREPROCESS, start, text.length());
+        return result;
+    }
+
+    /**
+     * 混合n-gram分词（默认策略为2-gram + 3-gram）：增强长序列匹配
+     * 兼容旧接口，内部复用编码分词引擎，仅在输出时还原为字符串
+     */
+    public static List<String> segment(String text) {
+        List<String> grams = new ArrayList<>();
+        segment(text, gram -> grams.add(GramCodes.toString(gram)));
+        return grams;
+    }
+
+    /**
+     * 按当前分词策略分词，gram编码直接推送给sink
+     */
+    public static void segment(String text, GramSink sink) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        if (!PipelineMetrics.isEnabled()) {
+            segmenter.segment(text, sink);
+            return;
+        }
+        // 只在统计开启时包装sink计数
+        long[] grams = new long[1];
+        GramSink counting = gram -> {
+            grams[0]++;
+            sink.accept(gram);
+        };
+        if (usesCharNGrams()) {
+            // 字符n-gram策略的规范化单独记为预处理阶段，分词阶段只含gram生成
+            TextNormalizer normalizer = NORMALIZER.get();
+            long preprocess = PipelineMetrics.start(PipelineMetrics.Stage.PREPROCESS);
+            int length = normalizer.normalize(text);
+            PipelineMetrics.stop(PipelineMetrics.Stage.PREPROCESS, preprocess, text.length());
+            long start = PipelineMetrics.start(PipelineMetrics.Stage.SEGMENT);
+            segment(normalizer.buffer(), 0, length, counting);
+            PipelineMetrics.stop(PipelineMetrics.Stage.SEGMENT, start, grams[0]);
+            return;
+        }
+        long start = PipelineMetrics.start(PipelineMetrics.Stage.SEGMENT);
+        segmenter.segment(text, counting);
+        PipelineMetrics.stop(PipelineMetrics.Stage.SEGMENT, start, grams[0]);
+    }
+
+    /**
+     * 预处理后生成字符2-gram和3-gram编码
+     */
+    static void segmentCharNGrams(CharSequence text, GramSink sink) {
+        // 直接在规范化缓冲区上分词，不生成预处理后的字符串
+        TextNormalizer normalizer = NORMALIZER.get();
+        int length = normalizer.normalize(text);
+        segment(normalizer.buffer(), 0, length, sink);
+    }
+
+    /**
+     * 在已预处理的字符数组上滚动生成2-gram和3-gram编码
+     * 空格会截断窗口，因此含空格的gram不会产生；整个过程不分配对象
+     * @param text 预处理后的字符
+     * @param offset 起始下标
+     * @param length 字符数
+     * @param sink gram编码接收者
+     */
+    public static void segment(char[] text, int offset, int length, GramSink sink) {
+        StopWordFilter filter = stopWordFilter;
+        int end = offset + length;
+        int run = 0; // 当前连续非空格字符数
+        for (int i = offset; i < end; i++) {
+            char c = text[i];
+            if (c == ' ') {
+                run = 0;
+                continue;
+            }
+            run++;
+            // 过滤含停用词的gram（如gram为"的是"，其中"的"是停用词）
+            if (run >= 2 && filter.isValid(text, i - 1, 2)) {
+                sink.accept(GramCodes.pack2(text[i - 1], c));
+            }
+            if (run >= 3 && filter.isValid(text, i - 2, 3)) {
+                sink.accept(GramCodes.pack3(text[i - 2], text[i - 1], c));
+            }
+        }
+    }
+
+    /**
+     * 复用当前线程的规范化缓冲区（供其他分词策略使用，结果在下一次规范化前有效）
+     */
+    static TextNormalizer normalizer() {
+        return NORMALIZER.get();
+    }
+
+    /**
+     * 编码词频统计：分词结果直接计入原始类型哈希表，不装箱
+     */
+    public static GramCountMap buildGramFrequency(String text) {
+        long start = PipelineMetrics.start(PipelineMetrics.Stage.BUILD_FREQUENCY);
+        GramCountMap frequency = new GramCountMap();
+        segment(text, frequency);
+        PipelineMetrics.stop(PipelineMetrics.Stage.BUILD_FREQUENCY, start, frequency.size());
+        return frequency;
+    }
+
+    /**
+     * 词频统计（字符串版本，保留兼容）
+     */
+    public static Map<String, Integer> buildWordFrequency(List<String> words) {
+        long start = PipelineMetrics.start(PipelineMetrics.Stage.BUILD_FREQUENCY);
+        Map<String, Integer> frequency = new HashMap<>();
+        for (String word : words) {
+            frequency.put(word, frequency.getOrDefault(word, 0) + 1);
+        }
+        PipelineMetrics.stop(PipelineMetrics.Stage.BUILD_FREQUENCY, start, frequency.size());
+        return frequency;
+    }
+}
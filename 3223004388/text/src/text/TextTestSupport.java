@@ -0,0 +1,22 @@
+package text;
+
+import java.util.Random;
+
+/**
+ * 测试共用的随机文本生成
+ */
+final class TextTestSupport {
+    private TextTestSupport() {
+    }
+
+    /**
+     * 从给定字符集中均匀随机取字符，拼成指定长度的文本
+     */
+    static String randomText(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,151 @@
+package text;
+
+/**
+ * 带阈值的加权余弦判定：只回答“保留两位小数后的相似度是否不低于阈值”，结论确定后立即停止
+ * <p>
+ * 较小向量的gram按次数从高到低（按2的幂分档）逐个到较大向量中查找，同时维护最终相似度的上下界：
+ * <ul>
+ * <li>下界：已查gram的点积不会再减小；加权模长取最大可能值，即两侧尚未确定的次数≥2的gram全部成为高频gram</li>
+ * <li>上界：未查部分的点积由柯西不等式不超过 1.2 × √(较小向量剩余平方和 × 较大向量未匹配平方和)，
+ * 剩余gram中次数为1的部分不乘1.2；加权模长取当前已知的最小值</li>
+ * </ul>
+ * 次数高的gram点积贡献大，先查它们能让上下界尽快收窄。上下界每查一组gram检查一次，
+ * 两者舍入后落在阈值同一侧时即可下结论；始终不能确定时算完全部gram，结果与
+ * {@link SimilarityCalculator#calculateSimilarity(DocumentVector, DocumentVector)} 完全一致。
+ * 较小向量不足 {@value #MIN_GRAMS} 个gram时不值得维护上下界，直接精确计算
+ */
+final class ThresholdCosine {
+    // 每查这么多个gram检查一次上下界
+    private static final int CHECK_INTERVAL = 64;
+    // 较小向量的gram数低于此值时直接精确计算：排序和维护上下界的开销超过可能省下的查找
+    private static final int MIN_GRAMS = 1024;
+    // 上下界的浮点误差余量，保证提前得出的结论与精确计算一致
+    private static final double MARGIN = 1e-9;
+
+    private final boolean atLeast;
+    private final int examined;
+    private final int total;
+
+    private ThresholdCosine(boolean atLeast, int examined, int total) {
+        this.atLeast = atLeast;
+        this.examined = examined;
+        this.total = total;
+    }
+
+    static ThresholdCosine evaluate(DocumentVector vector1, DocumentVector vector2, double threshold) {
+        // 处理空文本
+        if (vector1.isEmpty() || vector2.isEmpty()) {
+            double similarity = vector1.isEmpty() && vector2.isEmpty() ? 1.00 : 0.00;
+            return new ThresholdCosine(similarity >= threshold, 0, 0);
+        }
+        boolean firstSmaller = vector1.size() <= vector2.size();
+        DocumentVector smaller = firstSmaller ? vector1 : vector2;
+        DocumentVector largerVector = firstSmaller ? vector2 : vector1;
+        GramCountMap larger = largerVector.counts();
+        int size = smaller.size();
+        if (size < MIN_GRAMS) {
+            double similarity = SimilarityCalculator.cosine(vector1, vector2);
+            return new ThresholdCosine(round(similarity) >= threshold, size, size);
+        }
+
+        // 按次数从高到低排列（按2的幂分档，档内顺序不限）
+        long[] grams = new long[size];
+        int[] counts = new int[size];
+        smaller.counts().copyByDescendingCount(grams, counts);
+
+        double weight = SimilarityCalculator.HIGH_FREQUENCY_WEIGHT;
+        double extra = weight * weight - 1;
+        long squaresSmaller = smaller.squaredNorm();
+        long squaresLarger = largerVector.squaredNorm();
+        long remainingSmaller = squaresSmaller;                         // 未查gram的平方和
+        long remainingHighSmaller = smaller.repeatedSquaredNorm();      // 其中次数≥2的部分
+        long matchedLarger = 0;                                         // 较大向量中已匹配gram的平方和
+        long unmatchedHighLarger = largerVector.repeatedSquaredNorm(); // 较大向量中未匹配且次数≥2的部分
+        long dotLow = 0;
+        long dotHigh = 0;
+        long highSquaresSmaller = 0;
+        long highSquaresLarger = 0;
+        for (int i = 0; i < size; i++) {
+            long c1 = counts[i];
+            long square = c1 * c1;
+            remainingSmaller -= square;
+            if (c1 >= 2) {
+                remainingHighSmaller -= square;
+            }
+            long c2 = larger.get(grams[i]);
+            if (c2 != 0) {
+                matchedLarger += c2 * c2;
+                if (c2 >= 2) {
+                    unmatchedHighLarger -= c2 * c2;
+                }
+                if (c1 >= 2 && c2 >= 2) {
+                    dotHigh += c1 * c2;
+                    highSquaresSmaller += square;
+                    highSquaresLarger += c2 * c2;
+                } else {
+                    dotLow += c1 * c2;
+                }
+            }
+            if ((i + 1) % CHECK_INTERVAL != 0 || i + 1 == size) {
+                continue;
+            }
+            double dot = dotLow + dotHigh * weight;
+            // 尚未确定的次数≥2的gram都可能成为高频gram
+            double maxNormSmaller = squaresSmaller + (highSquaresSmaller + remainingHighSmaller) * extra;
+            double maxNormLarger = squaresLarger + (highSquaresLarger + unmatchedHighLarger) * extra;
+            double lower = dot / Math.sqrt(maxNormSmaller * maxNormLarger);
+            if (round(lower - MARGIN) >= threshold) {
+                return new ThresholdCosine(true, i + 1, size);
+            }
+            double minNormSmaller = squaresSmaller + highSquaresSmaller * extra;
+            double minNormLarger = squaresLarger + highSquaresLarger * extra;
+            // 剩余次数为1的gram不会成为高频gram，分开估计后取较紧的一个
+            double unmatchedLarger = Math.sqrt((double) (squaresLarger - matchedLarger));
+            double remainingDot = unmatchedLarger * Math.min(weight * Math.sqrt((double) remainingSmaller),
+                    weight * Math.sqrt((double) remainingHighSmaller)
+                            + Math.sqrt((double) (remainingSmaller - remainingHighSmaller)));
+            double upper = (dot + remainingDot) / Math.sqrt(minNormSmaller * minNormLarger);
+            if (round(upper + MARGIN) < threshold) {
+                return new ThresholdCosine(false, i + 1, size);
+            }
+        }
+        long highSquares1 = firstSmaller ? highSquaresSmaller : highSquaresLarger;
+        long highSquares2 = firstSmaller ? highSquaresLarger : highSquaresSmaller;
+        double similarity = SimilarityCalculator.weightedCosine(dotLow, dotHigh,
+                vector1.squaredNorm(), highSquares1, vector2.squaredNorm(), highSquares2);
+        return new ThresholdCosine(round(similarity) >= threshold, size, size);
+    }
+
+    /**
+     * 保留两位小数后的相似度是否不低于阈值
+     */
+    boolean atLeast() {
+        return atLeast;
+    }
+
+    /**
+     * 实际查找的gram数
+     */
+    int examined() {
+        return examined;
+    }
+
+    /**
+     * 完整计算需要查找的gram数（较小向量的gram数）
+     */
+    int total() {
+        return total;
+    }
+
+    /**
+     * 比完整计算少查的gram比例
+     */
+    double savedFraction() {
+        return total == 0 ? 0 : 1 - (double) examined / total;
+    }
+
+    // 与 calculateSimilarity 相同的两位小数舍入
+    private static double round(double similarity) {
+        return Math.round(similarity * 100.0) / 100.0;
+    }
+}
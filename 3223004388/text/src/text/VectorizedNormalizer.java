@@ -0,0 +1,132 @@
+package text;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link TextNormalizer} 的SIMD实现：用向量API一次对16（AVX2）或32（AVX-512）个字符做分类和小写转换
+ * <p>
+ * 字符类别（小写字母、数字、汉字、'、大写字母）均用“减去下界后无符号比较”判断区间，每类两条指令。
+ * 块内分隔符互不相邻时（正文中的绝大多数情况）转换结果直接整块写出；整块都是分隔符时只记录待输出的空格；
+ * 其余情况先整块转换再逐字符合并空格。只有启动时加了 --add-modules jdk.incubator.vector 才会加载本类
+ */
+final class VectorizedNormalizer {
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    // 除最后一个通道外全部为真
+    private static final VectorMask<Short> NOT_LAST = SPECIES.indexInRange(0, LANES - 1);
+
+    private final char[] block = new char[LANES];
+    private int position;
+    private boolean pendingSpace;
+
+    /**
+     * 当前平台的向量宽度是否值得使用（至少8个字符一组）
+     */
+    static boolean isSupported() {
+        return LANES >= 8;
+    }
+
+    static int lanes() {
+        return LANES;
+    }
+
+    /**
+     * 开始新一段文本
+     */
+    void reset() {
+        position = 0;
+        pendingSpace = false;
+    }
+
+    /**
+     * 已输出的字符数
+     */
+    int position() {
+        return position;
+    }
+
+    /**
+     * 规范化 src[offset, offset + count)，结果接在out已有内容之后
+     * out的容量不小于本段文本此前累计输入的字符数即可：输出字符数从不超过输入字符数
+     */
+    void append(char[] src, int offset, int count, char[] out) {
+        int pos = position;
+        boolean pending = pendingSpace;
+        int end = offset + count;
+        // 每组还要读入后移一个字符的一组，用于判断相邻的分隔符
+        int vectorEnd = count > 0 ? offset + SPECIES.loopBound(count - 1) : offset;
+        int i = offset;
+        for (; i < vectorEnd; i += LANES) {
+            ShortVector v = ShortVector.fromCharArray(SPECIES, src, i);
+            VectorMask<Short> upper = inRange(v, 'A', 'Z');
+            VectorMask<Short> separator = kept(v, upper).not();
+            if (separator.allTrue()) {
+                // 整块都是分隔符
+                pending = pos > 0;
+                continue;
+            }
+            ShortVector normalized = v.lanewise(VectorOperators.ADD, (short) ('a' - 'A'), upper)
+                    .blend((short) ' ', separator);
+            // 第k个字符与第k+1个字符都是分隔符（只看块内）
+            ShortVector next = ShortVector.fromCharArray(SPECIES, src, i + 1);
+            boolean adjacent = separator.and(kept(next, inRange(next, 'A', 'Z')).not()).and(NOT_LAST).anyTrue();
+            boolean first = TextNormalizer.normalizeChar(src[i]) == ' ';
+            // 分隔符互不相邻、且块首的分隔符不需要与前面合并或去掉时，整块直接写出
+            if (!adjacent && !(first && (pending || pos == 0))) {
+                if (pending) {
+                    out[pos++] = ' ';
+                }
+                normalized.intoCharArray(out, pos);
+                // 块尾的分隔符暂不输出，留给下一块决定是否合并
+                pending = TextNormalizer.normalizeChar(src[i + LANES - 1]) == ' ';
+                pos += pending ? LANES - 1 : LANES;
+                continue;
+            }
+            normalized.intoCharArray(block, 0);
+            for (int k = 0; k < LANES; k++) {
+                char c = block[k];
+                if (c == ' ') {
+                    pending = pos > 0;
+                } else {
+                    if (pending) {
+                        out[pos++] = ' ';
+                        pending = false;
+                    }
+                    out[pos++] = c;
+                }
+            }
+        }
+        // 不足一组的尾部逐字符处理
+        for (; i < end; i++) {
+            char c = TextNormalizer.normalizeChar(src[i]);
+            if (c == ' ') {
+                pending = pos > 0;
+            } else {
+                if (pending) {
+                    out[pos++] = ' ';
+                    pending = false;
+                }
+                out[pos++] = c;
+            }
+        }
+        position = pos;
+        pendingSpace = pending;
+    }
+
+    // 保留的字符：小写字母、数字、汉字、'，以及已单独判断出的大写字母
+    private static VectorMask<Short> kept(ShortVector v, VectorMask<Short> upper) {
+        return inRange(v, 'a', 'z')
+                .or(inRange(v, '0', '9'))
+                .or(inRange(v, '一', '龥'))
+                .or(v.compare(VectorOperators.EQ, (short) '\''))
+                .or(upper);
+    }
+
+    // lo <= v <= hi（按无符号16位比较）
+    private static VectorMask<Short> inRange(ShortVector v, char lo, char hi) {
+        return v.sub((short) lo).compare(VectorOperators.UNSIGNED_LE, (short) (hi - lo));
+    }
+}
@@ -0,0 +1,244 @@
+package text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于winnowing的局部抄袭片段定位
+ * <p>
+ * 对预处理后的文本（去掉空格）计算每个k字符片段的滚动哈希，在每w个连续哈希中选出最小值作为指纹。
+ * 两篇文本中长度不少于 w + k - 1 的共同片段保证至少共享一个指纹。
+ * 匹配时为原文指纹建哈希表，按位置逐个查找抄袭版指纹，校验字符后沿对角线向两侧扩展成最长片段；
+ * 抄袭版中每段文字只归入一个片段，已被覆盖的指纹直接跳过，因此全程线性时间。
+ * 最后通过规范化时记录的下标映射回原始文件位置
+ */
+public class Winnowing {
+    public static final int DEFAULT_K = 6;
+    public static final int DEFAULT_WINDOW = 6;
+    // 同一指纹在原文中出现过多次时只取前几处（多为套话，作为证据意义不大）
+    private static final int MAX_OCCURRENCES = 16;
+    private static final long BASE = 0x100000001b3L;
+
+    private final int k;
+    private final int window;
+    private final long highestPower;
+
+    public Winnowing() {
+        this(DEFAULT_K, DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param k 片段长度（规范化后的字符数）
+     * @param window 选取窗口内的哈希个数
+     */
+    public Winnowing(int k, int window) {
+        if (k <= 0 || window <= 0) {
+            throw new IllegalArgumentException("片段长度和窗口大小必须为正数");
+        }
+        this.k = k;
+        this.window = window;
+        long power = 1;
+        for (int i = 1; i < k; i++) {
+            power *= BASE;
+        }
+        this.highestPower = power;
+    }
+
+    /**
+     * 保证能被检出的最短共同片段长度（规范化后的字符数）
+     */
+    public int guaranteedLength() {
+        return window + k - 1;
+    }
+
+    /**
+     * 预处理文本并选取指纹
+     */
+    public Fingerprints fingerprint(String text) {
+        TextNormalizer normalizer = new TextNormalizer();
+        int length = normalizer.normalizeWithOffsets(text);
+        char[] normalized = normalizer.buffer();
+        int[] offsets = normalizer.offsets();
+
+        // 去掉空格，只保留有效字符及其原文下标
+        char[] content = new char[length];
+        int[] sourceOffsets = new int[length];
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            if (normalized[i] != ' ') {
+                content[n] = normalized[i];
+                sourceOffsets[n++] = offsets[i];
+            }
+        }
+
+        int grams = Math.max(0, n - k + 1);
+        long[] hashes = new long[grams];
+        long rolling = 0;
+        for (int i = 0; i < n; i++) {
+            if (i >= k) {
+                rolling -= content[i - k] * highestPower;
+            }
+            rolling = rolling * BASE + content[i];
+            if (i >= k - 1) {
+                // 多项式哈希低位分布不均，打散后再比较大小
+                hashes[i - k + 1] = MinHasher.mix(rolling);
+            }
+        }
+
+        // 单调队列求每个窗口的最小值（相同取最右），最小值位置变化时记录一个指纹
+        long[] selectedHashes = new long[grams];
+        int[] selectedPositions = new int[grams];
+        int selected = 0;
+        int[] deque = new int[grams];
+        int head = 0;
+        int tail = 0;
+        int lastRecorded = -1;
+        int effectiveWindow = Math.min(window, Math.max(grams, 1));
+        for (int i = 0; i < grams; i++) {
+            while (tail > head && hashes[deque[tail - 1]] >= hashes[i]) {
+                tail--;
+            }
+            deque[tail++] = i;
+            if (deque[head] <= i - effectiveWindow) {
+                head++;
+            }
+            if (i >= effectiveWindow - 1 && deque[head] != lastRecorded) {
+                lastRecorded = deque[head];
+                selectedHashes[selected] = hashes[lastRecorded];
+                selectedPositions[selected++] = lastRecorded;
+            }
+        }
+        return new Fingerprints(content, sourceOffsets, n, selectedHashes, selectedPositions, selected);
+    }
+
+    /**
+     * 找出两篇文本的共同片段，按在抄袭版中的位置排序
+     */
+    public List<CopiedPassage> match(String original, String plagiarized) {
+        return match(fingerprint(original), fingerprint(plagiarized));
+    }
+
+    /**
+     * 匹配两组指纹并扩展为最长共同片段
+     */
+    public List<CopiedPassage> match(Fingerprints original, Fingerprints plagiarized) {
+        // 原文指纹：哈希 → 链表头（下标+1），同哈希的多处位置串成链
+        GramCountMap heads = new GramCountMap(original.count);
+        int[] next = new int[original.count];
+        for (int i = original.count - 1; i >= 0; i--) {
+            long key = nonZero(original.hashes[i]);
+            next[i] = heads.get(key) - 1;
+            heads.put(key, i + 1);
+        }
+
+        // 抄袭版中已输出片段覆盖到的最远位置：完全落在其中的指纹不再扩展，扩展也不越过它向前回溯，
+        // 每个字符最多被常数个候选扫描，重复性很强的文本（长串数字、重复的表格行）也保持线性
+        int coveredEnd = 0;
+        char[] a = original.content;
+        char[] b = plagiarized.content;
+        List<CopiedPassage> passages = new ArrayList<>();
+        for (int j = 0; j < plagiarized.count; j++) {
+            int positionB = plagiarized.positions[j];
+            if (positionB + k <= coveredEnd) {
+                continue; // 已被输出的片段覆盖
+            }
+            // 同一指纹在原文中的多处出现各自扩展，只输出最长的一处
+            int bestStartA = -1;
+            int bestStartB = 0;
+            int bestLength = 0;
+            int candidate = heads.get(nonZero(plagiarized.hashes[j])) - 1;
+            for (int seen = 0; candidate >= 0 && seen < MAX_OCCURRENCES; candidate = next[candidate], seen++) {
+                int positionA = original.positions[candidate];
+                if (!regionMatches(a, positionA, b, positionB, k)) {
+                    continue; // 哈希碰撞
+                }
+                int startA = positionA;
+                int startB = positionB;
+                while (startA > 0 && startB > coveredEnd && a[startA - 1] == b[startB - 1]) {
+                    startA--;
+                    startB--;
+                }
+                int endA = positionA + k;
+                int endB = positionB + k;
+                while (endA < original.length && endB < plagiarized.length && a[endA] == b[endB]) {
+                    endA++;
+                    endB++;
+                }
+                if (endB - startB > bestLength) {
+                    bestStartA = startA;
+                    bestStartB = startB;
+                    bestLength = endB - startB;
+                }
+            }
+            if (bestStartA < 0) {
+                continue;
+            }
+            int endA = bestStartA + bestLength;
+            int endB = bestStartB + bestLength;
+            coveredEnd = endB;
+            passages.add(new CopiedPassage(
+                    original.sourceOffsets[bestStartA], original.sourceOffsets[endA - 1] + 1,
+                    plagiarized.sourceOffsets[bestStartB], plagiarized.sourceOffsets[endB - 1] + 1,
+                    bestLength));
+        }
+        Collections.sort(passages);
+        return passages;
+    }
+
+    private static boolean regionMatches(char[] a, int offsetA, char[] b, int offsetB, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[offsetA + i] != b[offsetB + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // GramCountMap不接受0作为键
+    private static long nonZero(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * 一篇文本的指纹集合，以及把有效字符映射回原文位置所需的下标
+     */
+    public static final class Fingerprints {
+        private final char[] content;
+        private final int[] sourceOffsets;
+        private final int length;
+        private final long[] hashes;
+        private final int[] positions;
+        private final int count;
+
+        Fingerprints(char[] content, int[] sourceOffsets, int length, long[] hashes, int[] positions, int count) {
+            this.content = content;
+            this.sourceOffsets = sourceOffsets;
+            this.length = length;
+            this.hashes = hashes;
+            this.positions = positions;
+            this.count = count;
+        }
+
+        /**
+         * 指纹个数
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * 第index个指纹的哈希值
+         */
+        public long hash(int index) {
+            return hashes[index];
+        }
+
+        /**
+         * 第index个指纹对应片段在原文中的起始下标
+         */
+        public int sourceOffset(int index) {
+            return sourceOffsets[positions[index]];
+        }
+    }
+}
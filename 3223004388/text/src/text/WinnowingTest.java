@@ -0,0 +1,83 @@
+package text;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static text.TextTestSupport.randomText;
+
+import java.util.List;
+import java.util.Random;
+
+public class WinnowingTest {
+    private static final String CHARS = "人工智能数据挖掘深度学习框架模型神经网络医疗领域应用发展阶段";
+
+    // 嵌入的抄袭段落被完整找回，且位置指向原始文件中的对应文字
+    @Test
+    public void testFindsEmbeddedPassage() {
+        Random random = new Random(16);
+        String copied = "本文提出了一种基于深度学习的医疗影像分析方法，显著提高了诊断准确率。";
+        String original = randomText(random, "甲乙丙丁戊己庚辛", 300) + "\n" + copied + "\n" + randomText(random, "甲乙丙丁戊己庚辛", 200);
+        String plagiarized = randomText(random, "子丑寅卯辰巳午未", 150) + "：" + copied + "！" + randomText(random, "子丑寅卯辰巳午未", 100);
+
+        List<CopiedPassage> passages = new Winnowing().match(original, plagiarized);
+        assertEquals(1, passages.size());
+        CopiedPassage passage = passages.get(0);
+        String fromOriginal = original.substring(passage.originalStart(), passage.originalEnd());
+        String fromPlagiarized = plagiarized.substring(passage.plagiarizedStart(), passage.plagiarizedEnd());
+        assertEquals(copied.substring(0, copied.length() - 1), fromOriginal);
+        assertEquals(fromOriginal, fromPlagiarized);
+    }
+
+    // 每个片段在两篇文本中规范化后内容相同；足够长的共同片段一定被找到
+    @Test
+    public void testPassagesAreAlignedOnRandomText() {
+        Random random = new Random(17);
+        Winnowing winnowing = new Winnowing(4, 5);
+        for (int round = 0; round < 50; round++) {
+            String original = randomText(random, CHARS, 400);
+            int from = random.nextInt(300);
+            String shared = original.substring(from, from + 20 + random.nextInt(80));
+            String plagiarized = randomText(random, CHARS, 100) + shared + randomText(random, CHARS, 100);
+
+            List<CopiedPassage> passages = winnowing.match(original, plagiarized);
+            boolean covered = false;
+            for (CopiedPassage passage : passages) {
+                String a = TextProcessor.preprocess(original.substring(passage.originalStart(), passage.originalEnd()));
+                String b = TextProcessor.preprocess(plagiarized.substring(passage.plagiarizedStart(), passage.plagiarizedEnd()));
+                assertEquals(a, b);
+                assertEquals(passage.length(), a.length());
+                assertTrue(passage.length() >= 4);
+                covered |= passage.plagiarizedStart() <= 100 && passage.plagiarizedEnd() >= 100 + shared.length();
+            }
+            assertTrue(covered);
+        }
+    }
+
+    // 高度重复的文本每个指纹都在原文中多处出现，匹配仍是线性时间，且抄袭版每段文字只报告一次
+    @Test(timeout = 10000)
+    public void testRepetitiveTextIsLinear() {
+        StringBuilder original = new StringBuilder();
+        StringBuilder plagiarized = new StringBuilder("前言");
+        for (int i = 0; i < 30000; i++) {
+            original.append("1234567890");
+            plagiarized.append("1234567890");
+        }
+        List<CopiedPassage> passages = new Winnowing().match(original.toString(), plagiarized.toString());
+        int end = 0;
+        int total = 0;
+        for (CopiedPassage passage : passages) {
+            assertTrue(passage.plagiarizedStart() >= end);
+            end = passage.plagiarizedEnd();
+            total += passage.length();
+        }
+        assertEquals(300000, total);
+    }
+
+    @Test
+    public void testNoMatchForUnrelatedText() {
+        Random random = new Random(18);
+        Winnowing winnowing = new Winnowing();
+        assertTrue(winnowing.match(randomText(random, "甲乙丙丁", 500), randomText(random, "子丑寅卯", 500)).isEmpty());
+        assertTrue(winnowing.match("", "人工智能").isEmpty());
+        assertEquals(0, winnowing.fingerprint("短文").size());
+    }
+}
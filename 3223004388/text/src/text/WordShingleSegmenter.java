@@ -0,0 +1,83 @@
+package text;
+
+/**
+ * 词级分词策略：预处理后以英文单词（连续的字母、数字、'）和单个汉字为词元，
+ * 每 size 个相邻词元组成一个词组（shingle）并编码为一个gram，适合英文论文
+ * <p>
+ * 不足 size 个词元的短文本整体作为一个词组，保证非空文本总能产生gram
+ */
+public final class WordShingleSegmenter implements Segmenter {
+    public static final int DEFAULT_SIZE = 3;
+
+    private final int size;
+
+    public WordShingleSegmenter() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * @param size 每个词组包含的词元数
+     */
+    public WordShingleSegmenter(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("词组长度必须为正数: " + size);
+        }
+        this.size = size;
+    }
+
+    @Override
+    public void segment(CharSequence text, GramSink sink) {
+        TextNormalizer normalizer = TextProcessor.normalizer();
+        int n = normalizer.normalize(text);
+        char[] chars = normalizer.buffer();
+        // 最近 size 个词元的编码（环形）
+        long[] recent = new long[size];
+        int tokens = 0;
+        int i = 0;
+        while (i < n) {
+            char c = chars[i];
+            if (c == ' ') {
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            if (isWordChar(c)) {
+                while (end < n && isWordChar(chars[end])) {
+                    end++;
+                }
+            }
+            recent[tokens % size] = GramCodes.hashed(chars, i, end);
+            tokens++;
+            if (tokens >= size) {
+                sink.accept(shingle(recent, tokens - size, size));
+            }
+            i = end;
+        }
+        if (tokens > 0 && tokens < size) {
+            sink.accept(shingle(recent, 0, tokens));
+        }
+    }
+
+    private long shingle(long[] recent, int first, int count) {
+        long code = recent[first % size];
+        for (int k = 1; k < count; k++) {
+            code = GramCodes.combine(code, recent[(first + k) % size]);
+        }
+        return code;
+    }
+
+    // 英文单词内的字符（汉字各自成词）
+    static boolean isWordChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '\'';
+    }
+
+    @Override
+    public String name() {
+        return "word" + size;
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+}